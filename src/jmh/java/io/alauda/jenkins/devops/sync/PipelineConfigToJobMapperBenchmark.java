@@ -0,0 +1,112 @@
+package io.alauda.jenkins.devops.sync;
+
+import hudson.model.BooleanParameterDefinition;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.StringParameterDefinition;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.UserRemoteConfig;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfigSpec;
+import io.alauda.devops.java.client.models.V1alpha1PipelineSource;
+import io.alauda.devops.java.client.models.V1alpha1PipelineSourceGit;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStrategy;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStrategyJenkins;
+import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.alauda.jenkins.devops.sync.constants.Constants;
+import io.alauda.jenkins.devops.sync.exception.PipelineConfigConvertException;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.jenkinsci.plugins.workflow.cps.CpsScmFlowDefinition;
+import org.jenkinsci.plugins.workflow.flow.FlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversions between PipelineConfig and job done by {@link PipelineConfigToJobMapper} when a
+ * PipelineConfig or its job is updated. SCMs and parameter definitions need their descriptors, so
+ * the job is created in a Jenkins started in the benchmark JVM.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineConfigToJobMapperBenchmark {
+  private static final int PARAMETERS = 20;
+  private static final String GIT_URI = "https://github.com/alauda/alauda-devops-sync-plugin";
+
+  /** A PipelineConfig from a git repository and its job with parameters. */
+  public static class JobState extends JmhBenchmarkState {
+    V1alpha1PipelineConfig pipelineConfig;
+    WorkflowJob job;
+
+    @Override
+    public void setup() throws Exception {
+      V1alpha1PipelineStrategyJenkins strategyJenkins = new V1alpha1PipelineStrategyJenkins();
+      strategyJenkins.setJenkinsfilePath("Jenkinsfile");
+      V1alpha1PipelineStrategy strategy = new V1alpha1PipelineStrategy();
+      strategy.setJenkins(strategyJenkins);
+
+      V1alpha1PipelineSourceGit git = new V1alpha1PipelineSourceGit();
+      git.setUri(GIT_URI);
+      git.setRef("master");
+      V1alpha1PipelineSource source = new V1alpha1PipelineSource();
+      source.setSourceType(Constants.SOURCE_TYPE_GIT);
+      source.setGit(git);
+
+      V1alpha1PipelineConfigSpec spec = new V1alpha1PipelineConfigSpec();
+      spec.setStrategy(strategy);
+      spec.setSource(source);
+      pipelineConfig = new V1alpha1PipelineConfig();
+      pipelineConfig.setMetadata(new V1ObjectMeta().namespace("devops").name("devops-pipeline"));
+      pipelineConfig.setSpec(spec);
+
+      List<ParameterDefinition> parameters = new ArrayList<>();
+      for (int i = 0; i < PARAMETERS; i++) {
+        parameters.add(
+            i % 2 == 0
+                ? new StringParameterDefinition("string-" + i, "value-" + i, "description-" + i)
+                : new BooleanParameterDefinition("boolean-" + i, true, "description-" + i));
+      }
+      job = getJenkins().createProject(WorkflowJob.class, "devops-pipeline");
+      job.addProperty(new ParametersDefinitionProperty(parameters));
+      job.setDefinition(
+          new CpsScmFlowDefinition(
+              new GitSCM(
+                  Collections.singletonList(new UserRemoteConfig(GIT_URI, null, null, null)),
+                  Collections.singletonList(new BranchSpec("*/master")),
+                  false,
+                  Collections.emptyList(),
+                  null,
+                  null,
+                  Collections.emptyList()),
+              "Jenkinsfile"));
+    }
+  }
+
+  @Benchmark
+  public FlowDefinition pipelineConfigToFlow(JobState state)
+      throws IOException, PipelineConfigConvertException {
+    return PipelineConfigToJobMapper.mapPipelineConfigToFlow(state.pipelineConfig);
+  }
+
+  @Benchmark
+  public V1alpha1PipelineConfig jobToPipelineConfig(JobState state) {
+    V1alpha1PipelineConfig pipelineConfig = DeepCopyUtils.deepCopy(state.pipelineConfig);
+    PipelineConfigToJobMapper.updatePipelineConfigFromJob(state.job, pipelineConfig);
+    return pipelineConfig;
+  }
+}
@@ -0,0 +1,186 @@
+package io.alauda.jenkins.devops.sync.client;
+
+import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
+import io.alauda.devops.java.client.models.V1alpha1LocalObjectReference;
+import io.alauda.devops.java.client.models.V1alpha1Pipeline;
+import io.alauda.devops.java.client.models.V1alpha1PipelineCause;
+import io.alauda.devops.java.client.models.V1alpha1PipelineList;
+import io.alauda.devops.java.client.models.V1alpha1PipelineSpec;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1ListMeta;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.util.CallGenerator;
+import io.kubernetes.client.util.CallGeneratorParams;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time until the Pipeline informer is synced when Jenkins starts. A cold start lists 50k Pipelines
+ * from a fake apiserver, a warm start serves the first list from the snapshot saved by {@link
+ * InformerSnapshots}. Both of them watch the fake apiserver after the list.
+ *
+ * <p>The fake apiserver responds the list without reading etcd, the gap to a real apiserver is
+ * larger than measured here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class InformerSnapshotsBenchmark {
+  private static final int PIPELINES = 50_000;
+  private static final int NAMESPACES = 100;
+  private static final String JENKINS_SERVICE = "jenkins";
+
+  private MockWebServer apiserver;
+  private DevopsAlaudaIoV1alpha1Api api;
+  private ApiClient apiClient;
+  private File snapshotFile;
+  private byte[] snapshot;
+
+  @Setup
+  public void setup() throws IOException {
+    List<V1alpha1Pipeline> pipelines = new ArrayList<>();
+    for (int i = 0; i < PIPELINES; i++) {
+      V1ObjectMeta metadata =
+          new V1ObjectMeta()
+              .namespace("devops-" + i % NAMESPACES)
+              .name("pipeline-" + i)
+              .uid("uid-" + i)
+              .resourceVersion(String.valueOf(i + 1))
+              .putLabelsItem("jenkins", JENKINS_SERVICE)
+              .putLabelsItem("pipelineConfig", "pipeline-config-" + i / 10)
+              .putAnnotationsItem("alauda.io/jenkins-build-uri", "job/pipeline-" + i + "/1/");
+      V1alpha1PipelineSpec spec = new V1alpha1PipelineSpec();
+      spec.setPipelineConfig(new V1alpha1LocalObjectReference().name("pipeline-config-" + i / 10));
+      spec.setJenkinsBinding(new V1alpha1LocalObjectReference().name(JENKINS_SERVICE));
+      spec.setCause(new V1alpha1PipelineCause().type("manual").message("Triggered by user"));
+
+      V1alpha1Pipeline pipeline = new V1alpha1Pipeline();
+      pipeline.setMetadata(metadata);
+      pipeline.setSpec(spec);
+      pipelines.add(pipeline);
+    }
+
+    V1alpha1PipelineList list = new V1alpha1PipelineList();
+    list.setMetadata(new V1ListMeta().resourceVersion(String.valueOf(PIPELINES)));
+    list.setItems(pipelines);
+
+    apiClient = new ApiClient();
+    String listBody = apiClient.getJSON().serialize(list);
+
+    apiserver = new MockWebServer();
+    apiserver.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            if ("true".equals(request.getRequestUrl().queryParameter("watch"))) {
+              // no events, closes after a while so the informer doesn't watch in a busy loop
+              return new MockResponse().setBody("").setHeadersDelay(1, TimeUnit.SECONDS);
+            }
+            return new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody(listBody);
+          }
+        });
+    apiserver.start();
+
+    apiClient.setBasePath(apiserver.url("/").toString());
+    apiClient.setHttpClient(
+        apiClient.getHttpClient().newBuilder().readTimeout(0, TimeUnit.SECONDS).build());
+    api = new DevopsAlaudaIoV1alpha1Api(apiClient);
+
+    snapshotFile = new File(Files.createTempDirectory("snapshots").toFile(), "Pipeline.json");
+    InformerSnapshots.write(snapshotFile, JENKINS_SERVICE, pipelines);
+    snapshot = Files.readAllBytes(snapshotFile.toPath());
+  }
+
+  /** The snapshot is deleted once it is read, so it is saved again before each start. */
+  @Setup(Level.Invocation)
+  public void saveSnapshot() throws IOException {
+    Files.write(snapshotFile.toPath(), snapshot);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    apiserver.shutdown();
+    Files.deleteIfExists(snapshotFile.toPath());
+    Files.deleteIfExists(snapshotFile.getParentFile().toPath());
+  }
+
+  @Benchmark
+  public int coldStart() throws InterruptedException {
+    return startAndWaitForSync(this::listOrWatch);
+  }
+
+  @Benchmark
+  public int warmStart() throws InterruptedException {
+    return startAndWaitForSync(
+        params -> {
+          Call call = listOrWatch(params);
+          if (Boolean.TRUE.equals(params.watch)) {
+            return call;
+          }
+
+          String content = InformerSnapshots.read(snapshotFile, JENKINS_SERVICE);
+          return content == null
+              ? call
+              : new InformerSnapshots.SnapshotCall(call.request(), content);
+        });
+  }
+
+  private Call listOrWatch(CallGeneratorParams params) throws ApiException {
+    return api.listPipelineForAllNamespacesCall(
+        null,
+        null,
+        null,
+        "jenkins=" + JENKINS_SERVICE,
+        null,
+        null,
+        params.resourceVersion,
+        params.timeoutSeconds,
+        params.watch,
+        null);
+  }
+
+  private int startAndWaitForSync(CallGenerator callGenerator) throws InterruptedException {
+    SharedInformerFactory factory = new SharedInformerFactory(apiClient);
+    SharedIndexInformer<V1alpha1Pipeline> informer =
+        factory.sharedIndexInformerFor(
+            callGenerator, V1alpha1Pipeline.class, V1alpha1PipelineList.class, 0);
+    factory.startAllRegisteredInformers();
+    try {
+      while (!informer.hasSynced()) {
+        Thread.sleep(1);
+      }
+      return informer.getIndexer().list().size();
+    } finally {
+      factory.stopAllRegisteredInformers();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package io.alauda.jenkins.devops.sync.client;
+
+import io.alauda.devops.java.client.models.V1alpha1Pipeline;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStatus;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStatusInfo;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStatusInfoItem;
+import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.alauda.devops.java.client.utils.PatchGenerator;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copying and diffing a Pipeline like {@link PipelineClient#update} does on every sync. The
+ * Pipeline has as many annotations as a running build with stages and run details.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelinePatchBenchmark {
+  private static final int ANNOTATIONS = 30;
+  private static final int ANNOTATION_SIZE = 4096;
+  private static final int INFORMATION_ITEMS = 50;
+
+  private V1alpha1Pipeline pipeline;
+  private V1alpha1Pipeline modifiedPipeline;
+
+  @Setup
+  public void setup() {
+    V1ObjectMeta metadata =
+        new V1ObjectMeta().namespace("devops").name("devops-pipeline-12").resourceVersion("1");
+    for (int i = 0; i < ANNOTATIONS; i++) {
+      metadata.putAnnotationsItem(
+          "alauda.io/jenkins.annotation-" + i, StringUtils.repeat("x", ANNOTATION_SIZE));
+    }
+
+    List<V1alpha1PipelineStatusInfoItem> items = new ArrayList<>();
+    for (int i = 0; i < INFORMATION_ITEMS; i++) {
+      V1alpha1PipelineStatusInfoItem item = new V1alpha1PipelineStatusInfoItem();
+      item.setName("item-" + i);
+      item.setType("string");
+      item.setValue("value-" + i);
+      item.setDescription("");
+      items.add(item);
+    }
+    V1alpha1PipelineStatusInfo information = new V1alpha1PipelineStatusInfo();
+    information.setItems(items);
+    V1alpha1PipelineStatus status = new V1alpha1PipelineStatus();
+    status.setInformation(information);
+
+    pipeline = new V1alpha1Pipeline();
+    pipeline.setMetadata(metadata);
+    pipeline.setStatus(status);
+
+    // a sync of running build usually changes the stages and progress annotations
+    modifiedPipeline = DeepCopyUtils.deepCopy(pipeline);
+    modifiedPipeline
+        .getMetadata()
+        .putAnnotationsItem(
+            "alauda.io/jenkins.annotation-0", StringUtils.repeat("y", ANNOTATION_SIZE));
+    modifiedPipeline
+        .getMetadata()
+        .putAnnotationsItem(
+            "alauda.io/jenkins.annotation-1", StringUtils.repeat("y", ANNOTATION_SIZE));
+  }
+
+  @Benchmark
+  public V1alpha1Pipeline deepCopy() {
+    return DeepCopyUtils.deepCopy(pipeline);
+  }
+
+  @Benchmark
+  public String generatePatch() throws IOException {
+    return new PatchGenerator().generatePatchBetween(pipeline, modifiedPipeline);
+  }
+}
@@ -0,0 +1,115 @@
+package io.alauda.jenkins.devops.sync.listener;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import com.jenkinsci.plugins.badge.action.BadgeAction;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.triggers.SCMTrigger;
+import hudson.triggers.TimerTrigger;
+import io.alauda.devops.java.client.models.V1alpha1Pipeline;
+import io.alauda.jenkins.devops.sync.JenkinsPipelineCause;
+import io.alauda.jenkins.devops.sync.scm.LastChangeData;
+import io.alauda.jenkins.devops.sync.util.PipelineUtils;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Annotations of the Pipeline built by {@link PipelineSyncExecutor} for every sync of a run. They
+ * look up actions of the run and extensions, so the run is built by a Jenkins started in the
+ * benchmark JVM.
+ *
+ * <p>staticAnnotations computes the annotations that won't change during the run, as every sync did
+ * before they were cached, cachedStaticAnnotations reads them from the cache of the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineAnnotationsBenchmark {
+  private static final String NAMESPACE = "devops";
+  private static final int ANNOTATIONS = 30;
+  private static final int BADGES = 10;
+
+  /** A finished run triggered by a Pipeline, with a few other causes, badges and commit. */
+  public static class RunState extends JmhBenchmarkState {
+    WorkflowRun run;
+    V1alpha1Pipeline pipeline;
+
+    @Override
+    public void setup() throws Exception {
+      Folder folder = getJenkins().createProject(Folder.class, NAMESPACE);
+      WorkflowJob job = folder.createProject(WorkflowJob.class, "devops-pipeline");
+      job.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+      run =
+          job.scheduleBuild2(
+                  0,
+                  new CauseAction(
+                      new JenkinsPipelineCause(
+                          "uid", NAMESPACE, "devops-pipeline-1", "", "", "config-uid"),
+                      new SCMTrigger.SCMTriggerCause("Started by an SCM change"),
+                      new TimerTrigger.TimerTriggerCause(),
+                      new Cause.RemoteCause("10.0.0.1", "webhook")))
+              .get();
+
+      for (int i = 0; i < BADGES; i++) {
+        run.addAction(BadgeAction.createBadge("info.gif", "badge-" + i));
+      }
+      LastChangeData lastChangeData = new LastChangeData();
+      lastChangeData.setCommit("2c4a7d0f1b3e5a6c8d9e0f1a2b3c4d5e6f7a8b9c");
+      lastChangeData.setAuthor("developer");
+      lastChangeData.setAuthorEmail("developer@example.com");
+      lastChangeData.setMessage("Fix the build");
+      lastChangeData.setBranch("master");
+      run.addAction(lastChangeData);
+
+      Map<String, String> annotations = new HashMap<>();
+      for (int i = 0; i < ANNOTATIONS; i++) {
+        annotations.put("alauda.io/annotation-" + i, "value-" + i);
+      }
+      pipeline = new V1alpha1Pipeline();
+      pipeline.setMetadata(
+          new V1ObjectMeta()
+              .namespace(NAMESPACE)
+              .name("devops-pipeline-1")
+              .annotations(annotations));
+    }
+  }
+
+  @Benchmark
+  public TreeSet<JenkinsPipelineCause> findAllAlaudaCauses(RunState state) {
+    return PipelineUtils.findAllAlaudaCauses(state.run);
+  }
+
+  @Benchmark
+  public Map<String, String> staticAnnotations(RunState state) {
+    return PipelineSyncExecutor.computeStaticAnnotations(state.run, NAMESPACE);
+  }
+
+  @Benchmark
+  public Map<String, String> cachedStaticAnnotations(RunState state) {
+    return PipelineSyncExecutor.getOrComputeStaticAnnotations(state.run, NAMESPACE);
+  }
+
+  @Benchmark
+  public Map<String, String> runAnnotations(RunState state) {
+    PipelineSyncExecutor.addBadgesToAnnotations(state.run, state.pipeline);
+    PipelineSyncExecutor.addSCMToAnnotations(state.run, state.pipeline);
+    PipelineSyncExecutor.addTestResultAnnotations(state.run, state.pipeline);
+    return state.pipeline.getMetadata().getAnnotations();
+  }
+}
@@ -0,0 +1,74 @@
+package io.alauda.jenkins.devops.sync.listener;
+
+import hudson.model.Action;
+import io.alauda.devops.java.client.models.V1alpha1PipelineStatusInfoItem;
+import io.alauda.jenkins.devops.sync.action.PipelineAction;
+import io.alauda.jenkins.devops.sync.listener.PipelineSyncExecutor.PipelineJson;
+import io.alauda.jenkins.devops.sync.listener.PipelineSyncExecutor.PipelineStage;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Per-sync work of {@link PipelineSyncExecutor} that doesn't need a running Jenkins. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineSyncBenchmark {
+  private static final int STAGES = 200;
+  private static final int INFORMATION_ITEMS = 50;
+
+  private PipelineJson pipelineJson;
+  private List<Action> actions;
+
+  @Setup
+  public void setup() {
+    pipelineJson = new PipelineJson();
+    for (int i = 0; i < STAGES; i++) {
+      pipelineJson.addStage(
+          new PipelineStage(
+              String.valueOf(i),
+              "stage-" + i,
+              "FINISHED",
+              "SUCCESS",
+              "2020-11-11T11:11:11.111+0000",
+              1000L * i,
+              0L,
+              Collections.emptyList()));
+    }
+
+    PipelineAction action = new PipelineAction();
+    for (int i = 0; i < INFORMATION_ITEMS; i++) {
+      action.addItem(new PipelineAction.Information("item-" + i, "value-" + i, "string", ""));
+    }
+    actions = Collections.singletonList(action);
+  }
+
+  @Benchmark
+  public String joinPaths() {
+    return PipelineSyncExecutor.joinPaths(
+        "http://jenkins.example.com/", "/job/devops/job/devops-pipeline/", "/12/", "/consoleText");
+  }
+
+  @Benchmark
+  public String blueOceanStages() {
+    return pipelineJson.toBlueJson();
+  }
+
+  @Benchmark
+  public List<V1alpha1PipelineStatusInfoItem> informationItems() {
+    return PipelineSyncExecutor.toInformationItems(actions);
+  }
+}
@@ -0,0 +1,68 @@
+package io.alauda.jenkins.devops.sync.scm;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing the raw changelog of a commit like {@link RecordLastChangeLog} does while git writing it.
+ * The changelog lists as many changed files as a large commit in a monorepo, and is written in
+ * chunks of the size git client uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LastChangeLogParserBenchmark {
+  private static final int CHUNK_SIZE = 8 * 1024;
+
+  @Param({"100", "100000"})
+  private int changedFiles;
+
+  private char[] changelog;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder();
+    builder
+        .append("commit 6f1c1e0a4a7d2b5b0c7bb2d1f4e1a3c9d8e7f6a5\n")
+        .append("tree 3b18e512dba79e4c8300dd08aeb37f8e728b8dad\n")
+        .append("parent 1d5b0a5d0c2f8d9e1f3a4b5c6d7e8f9a0b1c2d3e\n")
+        .append("author Alauda Developer <devs@alauda.io> 2020-11-20 10:12:01 +0800\n")
+        .append("committer Alauda Developer <devs@alauda.io> 2020-11-20 10:12:01 +0800\n")
+        .append('\n')
+        .append("    Move all modules to the new build layout\n")
+        .append('\n');
+    for (int i = 0; i < changedFiles; i++) {
+      builder
+          .append(":100644 100644 3b18e512dba79e4 1d5b0a5d0c2f8d9 M\tmodules/module-")
+          .append(i / 100)
+          .append("/src/main/java/io/alauda/example/Component")
+          .append(i)
+          .append(".java\n");
+    }
+    changelog = builder.toString().toCharArray();
+  }
+
+  @Benchmark
+  public LastChangeData parse() {
+    LastChangeData data = new LastChangeData();
+    LastChangeLogParser parser = new LastChangeLogParser(data);
+    for (int off = 0; off < changelog.length; off += CHUNK_SIZE) {
+      parser.write(changelog, off, Math.min(CHUNK_SIZE, changelog.length - off));
+    }
+    parser.close();
+    return data;
+  }
+}
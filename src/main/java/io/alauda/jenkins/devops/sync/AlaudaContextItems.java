@@ -0,0 +1,59 @@
+package io.alauda.jenkins.devops.sync;
+
+import io.alauda.jenkins.devops.sync.constants.Annotations;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Immutable items parsed from the context annotation of {@link AlaudaJobProperty}. The keys are
+ * stripped of the {@link Annotations#ALAUDA_PIPELINE_CONTEXT} prefix, so that lookups won't need to
+ * build the prefixed key again.
+ */
+public final class AlaudaContextItems {
+  private final String resourceVersion;
+  private final String contextAnnotation;
+  private final Map<String, String> items;
+
+  private AlaudaContextItems(
+      String resourceVersion, String contextAnnotation, Map<String, String> items) {
+    this.resourceVersion = resourceVersion;
+    this.contextAnnotation = contextAnnotation;
+    this.items = items;
+  }
+
+  @Nonnull
+  public static AlaudaContextItems parse(String resourceVersion, String contextAnnotation) {
+    if (contextAnnotation == null) {
+      return new AlaudaContextItems(resourceVersion, null, Collections.emptyMap());
+    }
+
+    String prefix = Annotations.ALAUDA_PIPELINE_CONTEXT.get().toString();
+    Map<String, String> items = new HashMap<>();
+    JSONObject json = JSONObject.fromObject(contextAnnotation);
+    for (Object key : json.keySet()) {
+      String annotationKey = key.toString();
+      if (annotationKey.startsWith(prefix)) {
+        items.put(annotationKey.substring(prefix.length()), json.getString(annotationKey));
+      }
+    }
+    return new AlaudaContextItems(
+        resourceVersion, contextAnnotation, Collections.unmodifiableMap(items));
+  }
+
+  /**
+   * Whether the items are parsed from the given property state. The context annotation is compared
+   * by reference, as it is always replaced as a whole.
+   */
+  public boolean isParsedFrom(String resourceVersion, String contextAnnotation) {
+    return StringUtils.equals(this.resourceVersion, resourceVersion)
+        && this.contextAnnotation == contextAnnotation;
+  }
+
+  public Map<String, String> getItems() {
+    return items;
+  }
+}
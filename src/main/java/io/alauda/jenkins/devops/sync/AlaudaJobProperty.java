@@ -3,9 +3,11 @@ package io.alauda.jenkins.devops.sync;
 import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.constants.Annotations;
+import io.alauda.jenkins.devops.sync.util.PipelineConfigUtils;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 
@@ -30,6 +32,13 @@ public interface AlaudaJobProperty {
 
   void setContextAnnotation(String contextAnnotation);
 
+  /** @return items of context annotation, keyed without the annotation prefix */
+  Map<String, String> getContextItems();
+
+  String getSpecHash();
+
+  void setSpecHash(String specHash);
+
   default boolean isValid() {
     return StringUtils.isNotBlank(getNamespace())
         && StringUtils.isNotBlank(getName())
@@ -66,4 +75,20 @@ public interface AlaudaJobProperty {
     }
     return contextAnnotation;
   }
+
+  /**
+   * Generate a hash of the content that the Jenkins job is built from, status changes except the
+   * conditions used by converters won't change this hash.
+   *
+   * @param pc instance of V1alpha1PipelineConfig
+   * @param codeRepositoryResourceVersion resourceVersion of the CodeRepository used by the
+   *     PipelineConfig, null if no CodeRepository used
+   * @return SHA-256 hash of PipelineConfig content in hex
+   * @see PipelineConfigUtils#specHash(V1alpha1PipelineConfig, String, String)
+   */
+  default String generateSpecHash(
+      V1alpha1PipelineConfig pc, @CheckForNull String codeRepositoryResourceVersion) {
+    return PipelineConfigUtils.specHash(
+        pc, generateAnnotationAsJSON(pc), codeRepositoryResourceVersion);
+  }
 }
@@ -21,6 +21,7 @@ import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
 import javax.annotation.Nonnull;
 import jenkins.model.GlobalConfiguration;
 import net.sf.json.JSONObject;
+import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
@@ -35,6 +36,12 @@ public class AlaudaSyncGlobalConfiguration extends GlobalConfiguration {
   private int resyncPeriod = 0;
   private transient String errorMsg;
   private String jobNamePattern;
+  private boolean bulkBootstrapEnabled;
+  private boolean compactBranchAnnotations;
+  private int stageLogBufferSize = 0;
+  private boolean informerSnapshotEnabled;
+  private boolean shardingEnabled;
+  private String shardLeaseNamespace = "default";
 
   public AlaudaSyncGlobalConfiguration() {
     this.load();
@@ -54,13 +61,17 @@ public class AlaudaSyncGlobalConfiguration extends GlobalConfiguration {
   public boolean configure(StaplerRequest req, JSONObject json) {
     String jenkinsServiceBefore = jenkinsService;
     boolean enabledBefore = enabled;
+    boolean shardingEnabledBefore = shardingEnabled;
+    String shardLeaseNamespaceBefore = shardLeaseNamespace;
 
     req.bindJSON(this, json);
     this.save();
 
     if (jenkinsService != null
         && jenkinsService.equals(jenkinsServiceBefore)
-        && enabled == enabledBefore) {
+        && enabled == enabledBefore
+        && shardingEnabled == shardingEnabledBefore
+        && StringUtils.equals(shardLeaseNamespace, shardLeaseNamespaceBefore)) {
       return true;
     }
 
@@ -117,6 +128,66 @@ public class AlaudaSyncGlobalConfiguration extends GlobalConfiguration {
     this.resyncPeriod = resyncPeriod;
   }
 
+  public boolean isBulkBootstrapEnabled() {
+    return bulkBootstrapEnabled;
+  }
+
+  @DataBoundSetter
+  public void setBulkBootstrapEnabled(boolean bulkBootstrapEnabled) {
+    this.bulkBootstrapEnabled = bulkBootstrapEnabled;
+  }
+
+  public boolean isCompactBranchAnnotations() {
+    return compactBranchAnnotations;
+  }
+
+  @DataBoundSetter
+  public void setCompactBranchAnnotations(boolean compactBranchAnnotations) {
+    this.compactBranchAnnotations = compactBranchAnnotations;
+  }
+
+  /** @return size in KB of the log buffer of each stage, 0 presents stage logs are not buffered */
+  public int getStageLogBufferSize() {
+    return stageLogBufferSize;
+  }
+
+  @DataBoundSetter
+  public void setStageLogBufferSize(int stageLogBufferSize) {
+    this.stageLogBufferSize = stageLogBufferSize;
+  }
+
+  public boolean isInformerSnapshotEnabled() {
+    return informerSnapshotEnabled;
+  }
+
+  @DataBoundSetter
+  public void setInformerSnapshotEnabled(boolean informerSnapshotEnabled) {
+    this.informerSnapshotEnabled = informerSnapshotEnabled;
+  }
+
+  public boolean isShardingEnabled() {
+    return shardingEnabled;
+  }
+
+  @DataBoundSetter
+  public void setShardingEnabled(boolean shardingEnabled) {
+    this.shardingEnabled = shardingEnabled;
+  }
+
+  /** @return namespace of the Leases held by the masters that share namespaces */
+  public String getShardLeaseNamespace() {
+    return shardLeaseNamespace;
+  }
+
+  @DataBoundSetter
+  public void setShardLeaseNamespace(String shardLeaseNamespace) {
+    this.shardLeaseNamespace = shardLeaseNamespace;
+  }
+
+  public String getBootstrapStatus() {
+    return ResourceControllerManager.getControllerManager().getBootstrapper().getStatus();
+  }
+
   public FormValidation doCheckResyncPeriod(@QueryParameter String value) {
     try {
       int minute = Integer.parseInt(value);
@@ -128,4 +199,16 @@ public class AlaudaSyncGlobalConfiguration extends GlobalConfiguration {
       return FormValidation.error("Not a number");
     }
   }
+
+  public FormValidation doCheckStageLogBufferSize(@QueryParameter String value) {
+    try {
+      int size = Integer.parseInt(value);
+      if (size < 0) {
+        return FormValidation.error("Should be greater than or equal to 0");
+      }
+      return FormValidation.ok();
+    } catch (NumberFormatException e) {
+      return FormValidation.error("Not a number");
+    }
+  }
 }
@@ -5,6 +5,7 @@ import com.cloudbees.hudson.plugins.folder.AbstractFolderProperty;
 import com.cloudbees.hudson.plugins.folder.AbstractFolderPropertyDescriptor;
 import hudson.Extension;
 import hudson.model.Descriptor;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import jenkins.branch.MultiBranchProject;
 import net.sf.json.JSONObject;
@@ -18,6 +19,8 @@ public class MultiBranchProperty extends AbstractFolderProperty<AbstractFolder<?
   private String name;
   private String resourceVersion;
   private String contextAnnotation;
+  private String specHash;
+  private transient volatile AlaudaContextItems contextItems;
 
   private boolean configuredDefaultResume;
 
@@ -85,6 +88,26 @@ public class MultiBranchProperty extends AbstractFolderProperty<AbstractFolder<?
     this.contextAnnotation = contextAnnotation;
   }
 
+  @Override
+  public String getSpecHash() {
+    return specHash;
+  }
+
+  @Override
+  public void setSpecHash(String specHash) {
+    this.specHash = specHash;
+  }
+
+  @Override
+  public Map<String, String> getContextItems() {
+    AlaudaContextItems items = contextItems;
+    if (items == null || !items.isParsedFrom(resourceVersion, contextAnnotation)) {
+      items = AlaudaContextItems.parse(resourceVersion, contextAnnotation);
+      contextItems = items;
+    }
+    return items.getItems();
+  }
+
   public boolean isConfiguredDefaultResume() {
     return configuredDefaultResume;
   }
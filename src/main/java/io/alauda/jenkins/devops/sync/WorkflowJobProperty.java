@@ -17,6 +17,7 @@ import hudson.Extension;
 import hudson.model.Job;
 import hudson.model.JobProperty;
 import hudson.model.JobPropertyDescriptor;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -35,6 +36,8 @@ public class WorkflowJobProperty extends JobProperty<Job<?, ?>> implements Alaud
   private String name;
   private String resourceVersion;
   private String contextAnnotation;
+  private String specHash;
+  private transient volatile AlaudaContextItems contextItems;
 
   private boolean configuredDefaultResume;
 
@@ -98,6 +101,26 @@ public class WorkflowJobProperty extends JobProperty<Job<?, ?>> implements Alaud
     this.contextAnnotation = contextAnnotation;
   }
 
+  @Override
+  public String getSpecHash() {
+    return specHash;
+  }
+
+  @Override
+  public void setSpecHash(String specHash) {
+    this.specHash = specHash;
+  }
+
+  @Override
+  public Map<String, String> getContextItems() {
+    AlaudaContextItems items = contextItems;
+    if (items == null || !items.isParsedFrom(resourceVersion, contextAnnotation)) {
+      items = AlaudaContextItems.parse(resourceVersion, contextAnnotation);
+      contextItems = items;
+    }
+    return items.getItems();
+  }
+
   @Extension
   public static final class DescriptorImpl extends JobPropertyDescriptor {
     public boolean isApplicable(Class<? extends Job> jobType) {
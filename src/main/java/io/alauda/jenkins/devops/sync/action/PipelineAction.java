@@ -2,9 +2,12 @@ package io.alauda.jenkins.devops.sync.action;
 
 import com.cloudbees.groovy.cps.NonCPS;
 import hudson.model.Action;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
 import org.kohsuke.stapler.export.ExportedBean;
@@ -12,6 +15,13 @@ import org.kohsuke.stapler.export.ExportedBean;
 @ExportedBean
 public class PipelineAction implements Action {
   private List<Information> items;
+  // increased on every modification of items, used to know if views built from items are outdated
+  private transient volatile int revision;
+  // count of items by name and type, so that we don't need to scan the items to find out if an
+  // item exists
+  private transient Map<String, Integer> index;
+  // whether the items were modified since the build persisted last time
+  private transient volatile boolean dirty;
 
   @CheckForNull
   @Override
@@ -31,10 +41,136 @@ public class PipelineAction implements Action {
     return null;
   }
 
+  /**
+   * Items of this action, scripts might modify items through the returned list, modifications are
+   * tracked like {@link #addItem(Information)} does.
+   *
+   * @return live list of items
+   */
   @Whitelisted
   @NonCPS
   public List<Information> getItems() {
-    return items;
+    return new ItemsView();
+  }
+
+  /** @return a copy of items, which is safe to iterate while items are being modified */
+  public synchronized List<Information> copyItems() {
+    return new ArrayList<>(items);
+  }
+
+  /** Append an item, items with the same name and type are allowed. */
+  public synchronized void addItem(Information item) {
+    ensureModifiable();
+    items.add(item);
+    getIndex().merge(key(item.getName(), item.getType()), 1, Integer::sum);
+    modified();
+  }
+
+  /** Replace all items that have the same name and type with the given item. */
+  public synchronized void putItem(Information item) {
+    removeItems(item.getName(), item.getType());
+    addItem(item);
+  }
+
+  /** Remove all items that have the same name and type. */
+  public synchronized void removeItems(String name, String type) {
+    String key = key(name, type);
+    if (getIndex().remove(key) == null) {
+      return;
+    }
+
+    ensureModifiable();
+    items.removeIf(item -> key.equals(key(item.getName(), item.getType())));
+    modified();
+  }
+
+  public int getRevision() {
+    return revision;
+  }
+
+  public boolean isDirty() {
+    return dirty;
+  }
+
+  /** Should be called before the build persisted, items modified after it will be dirty again. */
+  public void clearDirty() {
+    dirty = false;
+  }
+
+  private void modified() {
+    revision++;
+    dirty = true;
+  }
+
+  private Map<String, Integer> getIndex() {
+    if (index == null) {
+      index = new HashMap<>();
+      items.forEach(item -> index.merge(key(item.getName(), item.getType()), 1, Integer::sum));
+    }
+    return index;
+  }
+
+  private static String key(String name, String type) {
+    return name + "\u0000" + type;
+  }
+
+  private void ensureModifiable() {
+    if (!(items instanceof ArrayList)) {
+      items = new ArrayList<>(items);
+    }
+  }
+
+  /** List backed by items, modifications rebuild the index and mark the items modified. */
+  private class ItemsView extends AbstractList<Information> {
+    @Override
+    public Information get(int index) {
+      synchronized (PipelineAction.this) {
+        return items.get(index);
+      }
+    }
+
+    @Override
+    public int size() {
+      synchronized (PipelineAction.this) {
+        return items.size();
+      }
+    }
+
+    @Override
+    public Information set(int index, Information element) {
+      synchronized (PipelineAction.this) {
+        ensureModifiable();
+        Information old = items.set(index, element);
+        itemsModified();
+        return old;
+      }
+    }
+
+    @Override
+    public void add(int index, Information element) {
+      synchronized (PipelineAction.this) {
+        ensureModifiable();
+        items.add(index, element);
+        modCount++;
+        itemsModified();
+      }
+    }
+
+    @Override
+    public Information remove(int index) {
+      synchronized (PipelineAction.this) {
+        ensureModifiable();
+        Information old = items.remove(index);
+        modCount++;
+        itemsModified();
+        return old;
+      }
+    }
+
+    private void itemsModified() {
+      PipelineAction.this.index = null;
+      modified();
+    }
   }
 
   public static class Information {
@@ -0,0 +1,120 @@
+package io.alauda.jenkins.devops.sync.action;
+
+import hudson.Extension;
+import hudson.model.Action;
+import io.alauda.jenkins.devops.sync.log.StageLogBuffers;
+import io.alauda.jenkins.devops.sync.log.StageLogRingBuffer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.TransientActionFactory;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Provides the tail of stage logs kept in {@link StageLogBuffers}. Clients could tail a stage log
+ * by passing the offset they got last time, e.g.
+ *
+ * <pre>
+ *   GET job/foo/1/alaudaStageLog/log?stage=12&amp;start=1024
+ * </pre>
+ *
+ * The offset of next read is returned in header <code>X-Text-Size</code>, same as progressiveText.
+ */
+public class StageLogAction implements Action {
+  private final transient WorkflowRun run;
+
+  public StageLogAction(WorkflowRun run) {
+    this.run = run;
+  }
+
+  @CheckForNull
+  @Override
+  public String getIconFileName() {
+    return null;
+  }
+
+  @CheckForNull
+  @Override
+  public String getDisplayName() {
+    return null;
+  }
+
+  @CheckForNull
+  @Override
+  public String getUrlName() {
+    return "alaudaStageLog";
+  }
+
+  /** Lists ids of stages that have logs and the size of their logs. */
+  public void doStages(StaplerRequest req, StaplerResponse rsp) throws IOException {
+    StageLogBuffers buffers = StageLogBuffers.get(run.getExternalizableId());
+    if (buffers == null) {
+      rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    rsp.setContentType("application/json;charset=UTF-8");
+    rsp.getWriter().write(JSONObject.fromObject(buffers.getStages()).toString());
+  }
+
+  public void doLog(StaplerRequest req, StaplerResponse rsp) throws IOException {
+    StageLogBuffers buffers = StageLogBuffers.get(run.getExternalizableId());
+    String stage = StringUtils.defaultString(req.getParameter("stage"), StageLogBuffers.NO_STAGE);
+    StageLogRingBuffer buffer = buffers == null ? null : buffers.getBuffer(stage);
+    if (buffer == null) {
+      rsp.sendError(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+
+    long start;
+    try {
+      start = Long.parseLong(StringUtils.defaultIfEmpty(req.getParameter("start"), "0"));
+    } catch (NumberFormatException e) {
+      rsp.sendError(HttpServletResponse.SC_BAD_REQUEST, "invalid start offset");
+      return;
+    }
+
+    StageLogRingBuffer.Chunk chunk = buffer.read(start);
+    String etag = String.format("\"%s-%d-%d\"", stage, chunk.getStart(), chunk.getEnd());
+    rsp.setHeader("ETag", etag);
+    rsp.setHeader("X-Text-Size", String.valueOf(chunk.getEnd()));
+    // the bytes between start and the first byte in buffer were dropped
+    rsp.setHeader("X-Text-Start", String.valueOf(chunk.getStart()));
+    rsp.setHeader("X-More-Data", String.valueOf(run.isBuilding()));
+    if (etag.equals(req.getHeader("If-None-Match"))) {
+      rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    rsp.setContentType("text/plain;charset=UTF-8");
+    rsp.setContentLength(chunk.getData().length);
+    try (OutputStream out = rsp.getOutputStream()) {
+      out.write(chunk.getData());
+    }
+  }
+
+  @Extension
+  public static class Factory extends TransientActionFactory<WorkflowRun> {
+    @Override
+    public Class<WorkflowRun> type() {
+      return WorkflowRun.class;
+    }
+
+    @Nonnull
+    @Override
+    public Collection<? extends Action> createFor(@Nonnull WorkflowRun run) {
+      if (StageLogBuffers.get(run.getExternalizableId()) == null) {
+        return Collections.emptyList();
+      }
+      return Collections.singletonList(new StageLogAction(run));
+    }
+  }
+}
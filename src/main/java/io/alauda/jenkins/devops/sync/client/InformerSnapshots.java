@@ -0,0 +1,292 @@
+package io.alauda.jenkins.devops.sync.client;
+
+import com.google.gson.JsonObject;
+import hudson.init.Terminator;
+import hudson.util.AtomicFileWriter;
+import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.util.CallGenerator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import jenkins.model.Jenkins;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Timeout;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshots of informer caches stored under JENKINS_HOME. Snapshots are saved when Jenkins stops.
+ * When Jenkins starts, the first list of an informer is served from the snapshot instead of
+ * apiserver, then the informer watches from the resourceVersion of the snapshot. If the
+ * resourceVersion is too old, apiserver responds 410 Gone to the watch, and the informer relists
+ * from apiserver.
+ *
+ * <p>A snapshot is deleted once it is read, resources changed after Jenkins started are not in
+ * it. If Jenkins crashed, the next start lists from apiserver instead of serving a stale snapshot.
+ */
+public class InformerSnapshots {
+  private static final Logger logger = LoggerFactory.getLogger(InformerSnapshots.class);
+
+  private static final String SNAPSHOT_DIR = "alauda-sync-snapshots";
+  private static final String JENKINS_SERVICE_FIELD = "jenkinsService";
+
+  // types that have snapshot, snapshot of a type will only be served once after Jenkins started
+  private static final Map<Class, Boolean> snapshotServed = new ConcurrentHashMap<>();
+
+  private InformerSnapshots() {}
+
+  /**
+   * Wrap the list call of an informer, so that its first list will be served from snapshot.
+   *
+   * @param apiType type of resource
+   * @param callGenerator the list and watch call generator of informer
+   * @return the wrapped call generator
+   */
+  public static CallGenerator wrap(Class<?> apiType, CallGenerator callGenerator) {
+    snapshotServed.putIfAbsent(apiType, false);
+    return params -> {
+      Call call = callGenerator.generate(params);
+      if (Boolean.TRUE.equals(params.watch) || snapshotServed.put(apiType, true)) {
+        return call;
+      }
+
+      String snapshot = readSnapshot(apiType);
+      if (snapshot == null) {
+        return call;
+      }
+
+      logger.info("[InformerSnapshots] Serving the first list of {} from snapshot", apiType);
+      return new SnapshotCall(call.request(), snapshot);
+    };
+  }
+
+  @CheckForNull
+  private static String readSnapshot(Class<?> apiType) {
+    if (!AlaudaSyncGlobalConfiguration.get().isInformerSnapshotEnabled()) {
+      return null;
+    }
+
+    return read(snapshotFile(apiType), AlaudaSyncGlobalConfiguration.get().getJenkinsService());
+  }
+
+  /**
+   * Read the snapshot and delete it, so that a snapshot is served at most once. Resources keep
+   * changing after it was served, only a snapshot saved by the latest clean shutdown is up to date.
+   *
+   * @param file snapshot file
+   * @param jenkinsService name of the Jenkins service which reads the snapshot
+   * @return content of the snapshot, null if it doesn't exist or belongs to other Jenkins service
+   */
+  @CheckForNull
+  static String read(File file, String jenkinsService) {
+    if (!file.exists()) {
+      return null;
+    }
+
+    try {
+      String snapshot = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+      JsonObject json = new JSON().getGson().fromJson(snapshot, JsonObject.class);
+      // snapshot of other Jenkins service contains different resources
+      if (json == null
+          || !json.has(JENKINS_SERVICE_FIELD)
+          || !StringUtils.equals(json.get(JENKINS_SERVICE_FIELD).getAsString(), jenkinsService)) {
+        return null;
+      }
+      return snapshot;
+    } catch (IOException | RuntimeException e) {
+      logger.warn(
+          "[InformerSnapshots] Failed to read snapshot {}, reason {}", file, e.getMessage());
+      return null;
+    } finally {
+      try {
+        Files.deleteIfExists(file.toPath());
+      } catch (IOException e) {
+        logger.warn(
+            "[InformerSnapshots] Failed to delete snapshot {}, reason {}", file, e.getMessage());
+      }
+    }
+  }
+
+  /** Save snapshots of all synced informers. */
+  @Terminator
+  public static void saveAll() {
+    if (!AlaudaSyncGlobalConfiguration.get().isInformerSnapshotEnabled()) {
+      return;
+    }
+
+    for (Class apiType : snapshotServed.keySet()) {
+      ResourceClient<? extends KubernetesObject> client = Clients.get(apiType);
+      // informers of some namespaces cannot be served as the list of all namespaces
+      if (client == null
+          || client.informer() instanceof NamespacedInformer
+          || !client.informer().hasSynced()) {
+        continue;
+      }
+
+      try {
+        save(apiType, client.informer());
+      } catch (IOException | RuntimeException e) {
+        logger.warn(
+            "[InformerSnapshots] Failed to save snapshot of {}, reason {}",
+            apiType,
+            e.getMessage());
+      }
+    }
+  }
+
+  private static void save(
+      Class<?> apiType, SharedIndexInformer<? extends KubernetesObject> informer)
+      throws IOException {
+    List<? extends KubernetesObject> items = informer.getIndexer().list();
+    if (write(
+        snapshotFile(apiType), AlaudaSyncGlobalConfiguration.get().getJenkinsService(), items)) {
+      logger.info("[InformerSnapshots] Saved snapshot of {}", apiType);
+    }
+  }
+
+  /**
+   * Write the items as the list response of apiserver.
+   *
+   * @param file snapshot file
+   * @param jenkinsService name of the Jenkins service which saves the snapshot
+   * @param items cached items of informer
+   * @return false if the snapshot is not written as the items have no valid resourceVersion
+   * @throws IOException if the snapshot cannot be written
+   */
+  static boolean write(File file, String jenkinsService, List<? extends KubernetesObject> items)
+      throws IOException {
+    String resourceVersion = latestResourceVersion(items);
+    if (resourceVersion == null) {
+      return false;
+    }
+
+    JSON json = new JSON();
+    JsonObject metadata = new JsonObject();
+    metadata.addProperty("resourceVersion", resourceVersion);
+
+    JsonObject snapshot = new JsonObject();
+    snapshot.addProperty(JENKINS_SERVICE_FIELD, jenkinsService);
+    snapshot.add("metadata", metadata);
+    snapshot.add("items", json.getGson().toJsonTree(items));
+
+    File dir = file.getParentFile();
+    if (!dir.exists() && !dir.mkdirs()) {
+      throw new IOException("Unable to create directory " + dir);
+    }
+
+    AtomicFileWriter writer = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+    try {
+      json.getGson().toJson(snapshot, writer);
+      writer.commit();
+    } finally {
+      writer.abort();
+    }
+    return true;
+  }
+
+  /**
+   * Events are handled by informer in order, so all events before the latest resourceVersion of
+   * cached items were handled. Watching from it will only replay events that might not be in the
+   * cache.
+   *
+   * @return the latest resourceVersion, null if there is no item or resourceVersion is not numeric
+   */
+  @CheckForNull
+  private static String latestResourceVersion(List<? extends KubernetesObject> items) {
+    long latest = -1;
+    for (KubernetesObject item : items) {
+      try {
+        latest = Math.max(latest, Long.parseLong(item.getMetadata().getResourceVersion()));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    return latest < 0 ? null : String.valueOf(latest);
+  }
+
+  private static File snapshotFile(Class<?> apiType) {
+    return new File(
+        new File(Jenkins.get().getRootDir(), SNAPSHOT_DIR), apiType.getSimpleName() + ".json");
+  }
+
+  /** A call responds the snapshot without sending request to apiserver. */
+  static class SnapshotCall implements Call {
+    private static final MediaType JSON_TYPE = MediaType.get("application/json; charset=utf-8");
+
+    private final Request request;
+    private final String snapshot;
+    private volatile boolean executed;
+    private volatile boolean canceled;
+
+    SnapshotCall(Request request, String snapshot) {
+      this.request = request;
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public Request request() {
+      return request;
+    }
+
+    @Override
+    public Response execute() {
+      executed = true;
+      return new Response.Builder()
+          .request(request)
+          .protocol(Protocol.HTTP_1_1)
+          .code(200)
+          .message("OK")
+          .body(ResponseBody.create(JSON_TYPE, snapshot))
+          .build();
+    }
+
+    @Override
+    public void enqueue(Callback responseCallback) {
+      try {
+        responseCallback.onResponse(this, execute());
+      } catch (IOException e) {
+        responseCallback.onFailure(this, e);
+      }
+    }
+
+    @Override
+    public void cancel() {
+      canceled = true;
+    }
+
+    @Override
+    public boolean isExecuted() {
+      return executed;
+    }
+
+    @Override
+    public boolean isCanceled() {
+      return canceled;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public Call clone() {
+      return new SnapshotCall(request, snapshot);
+    }
+  }
+}
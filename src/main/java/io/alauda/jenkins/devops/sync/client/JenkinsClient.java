@@ -4,9 +4,13 @@ import static io.alauda.jenkins.devops.sync.constants.Annotations.MULTI_BRANCH_N
 import static io.alauda.jenkins.devops.sync.constants.Constants.FOLDER_DESCRIPTION;
 
 import com.cloudbees.hudson.plugins.folder.Folder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import hudson.BulkChange;
 import hudson.model.*;
 import hudson.model.Queue;
+import hudson.model.listeners.ItemListener;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import hudson.triggers.SafeTimerTask;
@@ -15,11 +19,13 @@ import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.V1alpha1Jenkins;
 import io.alauda.devops.java.client.models.V1alpha1Pipeline;
 import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.devops.java.client.models.V1alpha1PipelineSource;
 import io.alauda.devops.java.client.utils.PatchGenerator;
 import io.alauda.jenkins.devops.sync.*;
 import io.alauda.jenkins.devops.sync.exception.PipelineConfigConvertException;
 import io.alauda.jenkins.devops.sync.exception.PipelineException;
 import io.alauda.jenkins.devops.sync.mapper.PipelineConfigMapper;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.util.JenkinsUtils;
 import io.alauda.jenkins.devops.sync.util.NamespaceName;
 import io.alauda.jenkins.devops.sync.util.PipelineConfigUtils;
@@ -30,13 +36,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
-import javax.xml.transform.Source;
-import javax.xml.transform.stream.StreamSource;
 import jenkins.model.Jenkins;
 import jenkins.util.Timer;
 import org.apache.commons.lang3.StringUtils;
@@ -56,6 +61,11 @@ public class JenkinsClient {
   private Jenkins jenkins;
   private PipelineConfigMapper mapper;
   private Set<NamespaceName> deleteInProgress;
+  // the job that is being upserted by current thread, used to recognize the item events caused by
+  // the sync itself
+  private ThreadLocal<NamespaceName> upsertInProgress;
+  // resourceVersion of CodeRepositories used by multi-branch jobs
+  private Cache<NamespaceName, String> codeRepositoryResourceVersions;
 
   private static JenkinsClient instance = new JenkinsClient();
 
@@ -69,6 +79,9 @@ public class JenkinsClient {
 
     mapper = new PipelineConfigMapper();
     deleteInProgress = new HashSet<>();
+    upsertInProgress = new ThreadLocal<>();
+    codeRepositoryResourceVersions =
+        CacheBuilder.newBuilder().expireAfterWrite(1, TimeUnit.MINUTES).build();
   }
 
   @CheckForNull
@@ -201,10 +214,7 @@ public class JenkinsClient {
         return false;
       }
 
-      return pipelineConfig
-          .getMetadata()
-          .getResourceVersion()
-          .equals(property.getResourceVersion());
+      return isSynced(pipelineConfig, property);
     }
 
     if (item instanceof WorkflowMultiBranchProject) {
@@ -214,15 +224,78 @@ public class JenkinsClient {
         return false;
       }
 
-      return pipelineConfig
-          .getMetadata()
-          .getResourceVersion()
-          .equals(property.getResourceVersion());
+      return isSynced(pipelineConfig, property);
     }
 
     return false;
   }
 
+  private boolean isSynced(V1alpha1PipelineConfig pipelineConfig, AlaudaJobProperty property) {
+    // jobs created by old versions have no spec hash, fallback to compare resource version
+    if (StringUtils.isEmpty(property.getSpecHash())) {
+      return isResourceVersionSynced(pipelineConfig, property);
+    }
+
+    V1alpha1PipelineSource source = pipelineConfig.getSpec().getSource();
+    if (!(property instanceof MultiBranchProperty)
+        || source == null
+        || source.getCodeRepository() == null) {
+      return property.getSpecHash().equals(property.generateSpecHash(pipelineConfig, null));
+    }
+
+    NamespaceName codeRepository =
+        new NamespaceName(
+            pipelineConfig.getMetadata().getNamespace(), source.getCodeRepository().getName());
+    try {
+      if (property
+          .getSpecHash()
+          .equals(
+              property.generateSpecHash(
+                  pipelineConfig, getCodeRepositoryResourceVersion(codeRepository)))) {
+        return true;
+      }
+
+      // the cached resourceVersion might be older than the one the job was just built with
+      codeRepositoryResourceVersions.invalidate(codeRepository);
+      return property
+          .getSpecHash()
+          .equals(
+              property.generateSpecHash(
+                  pipelineConfig, getCodeRepositoryResourceVersion(codeRepository)));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      // don't rebuild the job only because the CodeRepository is unavailable for now
+      logger.debug(
+          "Unable to read CodeRepository of PipelineConfig '{}/{}', reason {}",
+          pipelineConfig.getMetadata().getNamespace(),
+          pipelineConfig.getMetadata().getName(),
+          e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+      return isResourceVersionSynced(pipelineConfig, property);
+    }
+  }
+
+  private boolean isResourceVersionSynced(
+      V1alpha1PipelineConfig pipelineConfig, AlaudaJobProperty property) {
+    return pipelineConfig.getMetadata().getResourceVersion().equals(property.getResourceVersion());
+  }
+
+  /**
+   * The resourceVersion is cached for a while, PipelineConfigs are checked on every reconcile and
+   * many of them may use the same CodeRepository.
+   *
+   * @throws ExecutionException if the CodeRepository cannot be read from apiserver
+   */
+  private String getCodeRepositoryResourceVersion(NamespaceName codeRepository)
+      throws ExecutionException {
+    return codeRepositoryResourceVersions.get(
+        codeRepository,
+        () ->
+            new DevopsAlaudaIoV1alpha1Api()
+                .readNamespacedCodeRepository(
+                    codeRepository.getName(), codeRepository.getNamespace(), null, null, null)
+                .getMetadata()
+                .getResourceVersion());
+  }
+
   @CheckForNull
   public WorkflowJobProperty getWorkflowJobProperty(@Nonnull WorkflowJob job) {
     WorkflowJobProperty wfJobProperty = job.getProperty(WorkflowJobProperty.class);
@@ -255,24 +328,22 @@ public class JenkinsClient {
             name);
       }
 
-      TopLevelItem jobInMemory = mapper.mapTo(pipelineConfig);
-      InputStream jobStream = new StringInputStream(new XStream2().toXML(jobInMemory));
-
-      // TODO add a checker to check if this item is valid
-
-      // we should create a new job
-      if (jobInJenkins == null) {
-        ItemGroup parent = jobInMemory.getParent();
-        if (parent instanceof Folder) {
-          ((Folder) parent)
-              .createProjectFromXML(mapper.jenkinsJobName(namespace, name), jobStream)
-              .save();
+      long startTime = System.currentTimeMillis();
+      upsertInProgress.set(namespaceName);
+      try {
+        if (jobInJenkins == null) {
+          createJob(pipelineConfig);
         } else {
-          // TODO throw an exception here
+          updateJob(pipelineConfig, jobInJenkins);
         }
-      } else {
-        ((AbstractItem) jobInJenkins).updateByXml(((Source) new StreamSource(jobStream)));
+      } finally {
+        upsertInProgress.remove();
       }
+      logger.debug(
+          "Upserted Jenkins job for PipelineConfig '{}/{}' in {} ms",
+          namespace,
+          name,
+          System.currentTimeMillis() - startTime);
 
       Item item = getItem(namespaceName);
       if (item == null) {
@@ -293,6 +364,52 @@ public class JenkinsClient {
     return true;
   }
 
+  /**
+   * Create a new Jenkins job for the PipelineConfig. The job is built in memory and then persisted
+   * through its XML representation, as the parent folder doesn't allow to register an existing
+   * item instance.
+   */
+  private void createJob(V1alpha1PipelineConfig pipelineConfig)
+      throws IOException, PipelineConfigConvertException {
+    String namespace = pipelineConfig.getMetadata().getNamespace();
+    String name = pipelineConfig.getMetadata().getName();
+
+    TopLevelItem jobInMemory = mapper.mapTo(pipelineConfig);
+    InputStream jobStream = new StringInputStream(new XStream2().toXML(jobInMemory));
+
+    // TODO add a checker to check if this item is valid
+    ItemGroup parent = jobInMemory.getParent();
+    if (parent instanceof Folder) {
+      ((Folder) parent).createProjectFromXML(mapper.jenkinsJobName(namespace, name), jobStream);
+    } else {
+      throw new PipelineConfigConvertException(
+          String.format(
+              "Unable to create Jenkins job for PipelineConfig '%s/%s', parent is not a folder",
+              namespace, name));
+    }
+  }
+
+  /**
+   * Apply the PipelineConfig to an existing Jenkins job. The converters modify the live item
+   * directly, so we only need to collect all the changes into one save instead of serializing the
+   * job and reloading it from XML.
+   */
+  private void updateJob(V1alpha1PipelineConfig pipelineConfig, Item jobInJenkins)
+      throws IOException, PipelineConfigConvertException {
+    if (!(jobInJenkins instanceof Saveable)) {
+      throw new PipelineConfigConvertException(
+          String.format(
+              "Unable to update Jenkins job %s, item is not saveable",
+              jobInJenkins.getFullName()));
+    }
+
+    try (BulkChange bc = new BulkChange((Saveable) jobInJenkins)) {
+      mapper.mapTo(pipelineConfig);
+      bc.commit();
+    }
+    ItemListener.fireOnUpdated(jobInJenkins);
+  }
+
   public boolean deleteJob(NamespaceName namespaceName) throws IOException, InterruptedException {
     TopLevelItem job = cachedJobMap.remove(namespaceName);
 
@@ -553,13 +670,17 @@ public class JenkinsClient {
     try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
       Folder folder = getFolder(folderName);
       if (folder != null) {
+        // only persist the folder when the property is missing or the folder was marked as dirty,
+        // the folder is already synced otherwise
         AlaudaFolderProperty alaPro = folder.getProperties().get(AlaudaFolderProperty.class);
         if (alaPro == null) {
           folder.addProperty(new AlaudaFolderProperty());
-        } else {
+        } else if (alaPro.isDirty()) {
           alaPro.setDirty(false);
+          folder.save();
+        } else {
+          Metrics.folderSaveAvoidedCounter.inc();
         }
-        folder.save();
         return folder;
       } else {
         folder = new Folder(jenkins, folderName);
@@ -589,6 +710,14 @@ public class JenkinsClient {
     return deleteInProgress.contains(new NamespaceName(namespace, name));
   }
 
+  /**
+   * Whether the job is being upserted from PipelineConfig by current thread. Item events fired in
+   * this period are caused by the sync itself and should not be synced back to PipelineConfig.
+   */
+  public boolean isUpsertInProgress(String namespace, String name) {
+    return new NamespaceName(namespace, name).equals(upsertInProgress.get());
+  }
+
   public boolean updateJenkins(V1alpha1Jenkins oldJenkins, V1alpha1Jenkins newJenkins) {
     String name = oldJenkins.getMetadata().getName();
 
@@ -0,0 +1,309 @@
+package io.alauda.jenkins.devops.sync.client;
+
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.ResourceEventHandler;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Caches;
+import io.kubernetes.client.informer.cache.Indexer;
+import io.kubernetes.client.util.CallGenerator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Informer of a namespaced resource that only lists and watches some namespaces, instead of all
+ * namespaces. Every namespace has its own informer, event handlers are added to all of them and
+ * the indexer reads through them, so it could be used by clients and controllers like an informer
+ * of all namespaces.
+ *
+ * <p>Namespaces could be watched or forgotten after the informer started. Unlike other informers,
+ * {@link #run()} returns once the informers of namespaces started.
+ */
+public class NamespacedInformer<
+        ApiType extends KubernetesObject, ApiListType extends KubernetesListObject>
+    implements SharedIndexInformer<ApiType> {
+  private static final Logger logger = LoggerFactory.getLogger(NamespacedInformer.class);
+
+  private final Class<ApiType> apiTypeClass;
+  private final Class<ApiListType> apiListTypeClass;
+  private final Function<String, CallGenerator> callGenerators;
+  private final long resyncPeriod;
+
+  private final Map<String, NamespaceInformer<ApiType>> informers = new ConcurrentHashMap<>();
+  // guarded by this
+  private final List<EventHandler<ApiType>> eventHandlers = new ArrayList<>();
+  private final Indexer<ApiType> indexer = new NamespacedIndexer();
+  private boolean started;
+  private boolean stopped;
+
+  /**
+   * @param apiTypeClass type of resource
+   * @param apiListTypeClass list type of resource
+   * @param callGenerators list and watch call generator of a namespace
+   * @param resyncPeriod resync period in millis
+   */
+  public NamespacedInformer(
+      Class<ApiType> apiTypeClass,
+      Class<ApiListType> apiListTypeClass,
+      Function<String, CallGenerator> callGenerators,
+      long resyncPeriod) {
+    this.apiTypeClass = apiTypeClass;
+    this.apiListTypeClass = apiListTypeClass;
+    this.callGenerators = callGenerators;
+    this.resyncPeriod = resyncPeriod;
+  }
+
+  /**
+   * Start to list and watch the namespace, it will be started immediately if this informer is
+   * running.
+   *
+   * @param namespace namespace to watch
+   */
+  public synchronized void watchNamespace(String namespace) {
+    if (stopped || informers.containsKey(namespace)) {
+      return;
+    }
+
+    SharedInformerFactory factory = new SharedInformerFactory();
+    SharedIndexInformer<ApiType> informer =
+        factory.sharedIndexInformerFor(
+            callGenerators.apply(namespace), apiTypeClass, apiListTypeClass, resyncPeriod);
+    eventHandlers.forEach(
+        eventHandler ->
+            informer.addEventHandlerWithResyncPeriod(
+                eventHandler.handler, eventHandler.resyncPeriod));
+    informers.put(namespace, new NamespaceInformer<>(factory, informer));
+
+    if (started) {
+      logger.debug("[NamespacedInformer] Start to watch {} in {}", apiTypeClass, namespace);
+      factory.startAllRegisteredInformers();
+    }
+  }
+
+  /**
+   * Stop watching the namespace, its resources will be removed from the indexer without events.
+   *
+   * @param namespace namespace to forget
+   */
+  public synchronized void forgetNamespace(String namespace) {
+    NamespaceInformer<ApiType> informer = informers.remove(namespace);
+    if (informer != null) {
+      logger.debug("[NamespacedInformer] Stop watching {} in {}", apiTypeClass, namespace);
+      informer.factory.stopAllRegisteredInformers();
+    }
+  }
+
+  public Set<String> getNamespaces() {
+    return Collections.unmodifiableSet(informers.keySet());
+  }
+
+  @Override
+  public void addEventHandler(ResourceEventHandler<ApiType> handler) {
+    addEventHandlerWithResyncPeriod(handler, resyncPeriod);
+  }
+
+  @Override
+  public synchronized void addEventHandlerWithResyncPeriod(
+      ResourceEventHandler<ApiType> handler, long resyncPeriod) {
+    eventHandlers.add(new EventHandler<>(handler, resyncPeriod));
+    informers
+        .values()
+        .forEach(
+            informer -> informer.informer.addEventHandlerWithResyncPeriod(handler, resyncPeriod));
+  }
+
+  @Override
+  public synchronized void run() {
+    if (started || stopped) {
+      return;
+    }
+
+    started = true;
+    logger.info(
+        "[NamespacedInformer] Start to watch {} in namespaces {}",
+        apiTypeClass,
+        informers.keySet());
+    informers.values().forEach(informer -> informer.factory.startAllRegisteredInformers());
+  }
+
+  @Override
+  public synchronized void stop() {
+    stopped = true;
+    informers.values().forEach(informer -> informer.factory.stopAllRegisteredInformers());
+    informers.clear();
+  }
+
+  /**
+   * @return false if no namespace is watched, an empty cache would make every resource look like
+   *     deleted
+   */
+  @Override
+  public boolean hasSynced() {
+    return !informers.isEmpty()
+        && informers.values().stream().allMatch(informer -> informer.informer.hasSynced());
+  }
+
+  /** @return null, as each namespace is synced to its own resourceVersion */
+  @CheckForNull
+  @Override
+  public String lastSyncResourceVersion() {
+    return null;
+  }
+
+  @Override
+  public void addIndexers(Map<String, Function<ApiType, List<String>>> indexers) {
+    throw new UnsupportedOperationException("Indexers of NamespacedInformer cannot be changed");
+  }
+
+  @Override
+  public Indexer<ApiType> getIndexer() {
+    return indexer;
+  }
+
+  private static class NamespaceInformer<ApiType extends KubernetesObject> {
+    private final SharedInformerFactory factory;
+    private final SharedIndexInformer<ApiType> informer;
+
+    NamespaceInformer(SharedInformerFactory factory, SharedIndexInformer<ApiType> informer) {
+      this.factory = factory;
+      this.informer = informer;
+    }
+  }
+
+  private static class EventHandler<ApiType extends KubernetesObject> {
+    private final ResourceEventHandler<ApiType> handler;
+    private final long resyncPeriod;
+
+    EventHandler(ResourceEventHandler<ApiType> handler, long resyncPeriod) {
+      this.handler = handler;
+      this.resyncPeriod = resyncPeriod;
+    }
+  }
+
+  /** Reads through the indexers of namespaces, it cannot be modified. */
+  private class NamespacedIndexer implements Indexer<ApiType> {
+
+    @CheckForNull
+    private Indexer<ApiType> indexerOf(String namespace) {
+      NamespaceInformer<ApiType> informer = informers.get(namespace);
+      return informer == null ? null : informer.informer.getIndexer();
+    }
+
+    @Override
+    public List<ApiType> list() {
+      List<ApiType> items = new ArrayList<>();
+      informers.values().forEach(informer -> items.addAll(informer.informer.getIndexer().list()));
+      return items;
+    }
+
+    @Override
+    public List<String> listKeys() {
+      List<String> keys = new ArrayList<>();
+      informers
+          .values()
+          .forEach(informer -> keys.addAll(informer.informer.getIndexer().listKeys()));
+      return keys;
+    }
+
+    @CheckForNull
+    @Override
+    public ApiType get(ApiType obj) {
+      Indexer<ApiType> namespaceIndexer = indexerOf(obj.getMetadata().getNamespace());
+      return namespaceIndexer == null ? null : namespaceIndexer.get(obj);
+    }
+
+    @CheckForNull
+    @Override
+    public ApiType getByKey(String key) {
+      Indexer<ApiType> namespaceIndexer = indexerOf(StringUtils.substringBefore(key, "/"));
+      return namespaceIndexer == null ? null : namespaceIndexer.getByKey(key);
+    }
+
+    @Override
+    public List<ApiType> index(String indexName, ApiType obj) {
+      Indexer<ApiType> namespaceIndexer = indexerOf(obj.getMetadata().getNamespace());
+      return namespaceIndexer == null
+          ? Collections.emptyList()
+          : namespaceIndexer.index(indexName, obj);
+    }
+
+    @Override
+    public List<String> indexKeys(String indexName, String indexKey) {
+      List<String> keys = new ArrayList<>();
+      informers
+          .values()
+          .forEach(
+              informer ->
+                  keys.addAll(informer.informer.getIndexer().indexKeys(indexName, indexKey)));
+      return keys;
+    }
+
+    @Override
+    public List<ApiType> byIndex(String indexName, String indexKey) {
+      if (Caches.NAMESPACE_INDEX.equals(indexName)) {
+        Indexer<ApiType> namespaceIndexer = indexerOf(indexKey);
+        return namespaceIndexer == null
+            ? Collections.emptyList()
+            : namespaceIndexer.byIndex(indexName, indexKey);
+      }
+
+      List<ApiType> items = new ArrayList<>();
+      informers
+          .values()
+          .forEach(
+              informer ->
+                  items.addAll(informer.informer.getIndexer().byIndex(indexName, indexKey)));
+      return items;
+    }
+
+    @Override
+    public Map<String, Function<ApiType, List<String>>> getIndexers() {
+      return informers
+          .values()
+          .stream()
+          .findFirst()
+          .map(informer -> informer.informer.getIndexer().getIndexers())
+          .orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public void addIndexers(Map<String, Function<ApiType, List<String>>> indexers) {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+
+    @Override
+    public void add(ApiType obj) {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+
+    @Override
+    public void update(ApiType obj) {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+
+    @Override
+    public void delete(ApiType obj) {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+
+    @Override
+    public void replace(List<ApiType> list, String resourceVersion) {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+
+    @Override
+    public void resync() {
+      throw new UnsupportedOperationException("Indexer of NamespacedInformer cannot be changed");
+    }
+  }
+}
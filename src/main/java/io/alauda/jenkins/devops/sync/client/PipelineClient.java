@@ -3,6 +3,7 @@ package io.alauda.jenkins.devops.sync.client;
 import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.V1alpha1Pipeline;
 import io.alauda.devops.java.client.utils.PatchGenerator;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.kubernetes.client.custom.V1Patch;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.cache.Lister;
@@ -10,6 +11,7 @@ import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.models.V1DeleteOptions;
 import io.kubernetes.client.openapi.models.V1Status;
 import io.kubernetes.client.util.PatchUtils;
+import io.prometheus.client.Histogram;
 import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +44,8 @@ public class PipelineClient implements ResourceClient<V1alpha1Pipeline> {
     String namespace = oldPipeline.getMetadata().getNamespace();
 
     String patch;
+    Histogram.Timer patchTimer =
+        Metrics.pipelineSyncPhaseHistogram.labels("patch_generation").startTimer();
     try {
       patch = new PatchGenerator().generatePatchBetween(oldPipeline, newPipeline);
     } catch (IOException e) {
@@ -51,11 +55,14 @@ public class PipelineClient implements ResourceClient<V1alpha1Pipeline> {
           name,
           e.getMessage());
       return false;
+    } finally {
+      patchTimer.observeDuration();
     }
 
     logger.debug("Pipeline patch {}", patch);
 
     DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
+    Histogram.Timer httpTimer = Metrics.pipelineSyncPhaseHistogram.labels("http").startTimer();
     try {
       PatchUtils.patch(
           V1alpha1Pipeline.class,
@@ -71,6 +78,8 @@ public class PipelineClient implements ResourceClient<V1alpha1Pipeline> {
               namespace, name, e.getMessage(), e.getResponseBody()),
           e);
       return false;
+    } finally {
+      httpTimer.observeDuration();
     }
 
     return true;
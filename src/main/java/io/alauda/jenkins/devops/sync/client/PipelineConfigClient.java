@@ -1,5 +1,8 @@
 package io.alauda.jenkins.devops.sync.client;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
 import io.alauda.devops.java.client.utils.PatchGenerator;
@@ -41,30 +44,13 @@ public class PipelineConfigClient implements ResourceClient<V1alpha1PipelineConf
     String name = oldPipelineConfig.getMetadata().getName();
     String namespace = oldPipelineConfig.getMetadata().getNamespace();
 
-    String patch;
-    try {
-      patch = new PatchGenerator().generatePatchBetween(oldPipelineConfig, newPipelineConfig);
-    } catch (IOException e) {
-      logger.warn(
-          "Unable to generate patch for PipelineConfig '{}/{}', reason: {}",
-          namespace,
-          name,
-          e.getMessage());
+    String patch = generatePatch(oldPipelineConfig, newPipelineConfig);
+    if (patch == null) {
       return false;
     }
 
-    logger.info("PipelineConfig update patch: " + patch);
-
-    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-
     try {
-      PatchUtils.patch(
-          V1alpha1PipelineConfig.class,
-          () ->
-              api.patchNamespacedPipelineConfigCall(
-                  name, namespace, new V1Patch(patch), null, null, null, null, null),
-          V1Patch.PATCH_FORMAT_JSON_PATCH,
-          api.getApiClient());
+      patch(namespace, name, patch);
     } catch (ApiException e) {
       logger.warn(
           String.format(
@@ -76,6 +62,68 @@ public class PipelineConfigClient implements ResourceClient<V1alpha1PipelineConf
     return true;
   }
 
+  /**
+   * Update the PipelineConfig only if its resourceVersion is still the one of the old
+   * PipelineConfig, which is useful when the old PipelineConfig is read from the informer cache.
+   *
+   * @param oldPipelineConfig PipelineConfig that the changes are made on
+   * @param newPipelineConfig PipelineConfig with changes
+   * @return true if updated, false if unable to generate the patch
+   * @throws ApiException if failed to patch, code 409 or 422 means the old PipelineConfig is stale
+   */
+  public boolean updateIfNotModified(
+      V1alpha1PipelineConfig oldPipelineConfig, V1alpha1PipelineConfig newPipelineConfig)
+      throws ApiException {
+    String patch = generatePatch(oldPipelineConfig, newPipelineConfig);
+    if (patch == null) {
+      return false;
+    }
+
+    // the test operation makes apiserver reject the whole patch if the resourceVersion changed
+    JsonObject test = new JsonObject();
+    test.addProperty("op", "test");
+    test.addProperty("path", "/metadata/resourceVersion");
+    test.addProperty("value", oldPipelineConfig.getMetadata().getResourceVersion());
+    JsonArray operations = new JsonArray();
+    operations.add(test);
+    operations.addAll(new JsonParser().parse(patch).getAsJsonArray());
+
+    patch(
+        oldPipelineConfig.getMetadata().getNamespace(),
+        oldPipelineConfig.getMetadata().getName(),
+        operations.toString());
+    return true;
+  }
+
+  private String generatePatch(
+      V1alpha1PipelineConfig oldPipelineConfig, V1alpha1PipelineConfig newPipelineConfig) {
+    String patch;
+    try {
+      patch = new PatchGenerator().generatePatchBetween(oldPipelineConfig, newPipelineConfig);
+    } catch (IOException e) {
+      logger.warn(
+          "Unable to generate patch for PipelineConfig '{}/{}', reason: {}",
+          oldPipelineConfig.getMetadata().getNamespace(),
+          oldPipelineConfig.getMetadata().getName(),
+          e.getMessage());
+      return null;
+    }
+
+    logger.info("PipelineConfig update patch: " + patch);
+    return patch;
+  }
+
+  private void patch(String namespace, String name, String patch) throws ApiException {
+    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
+    PatchUtils.patch(
+        V1alpha1PipelineConfig.class,
+        () ->
+            api.patchNamespacedPipelineConfigCall(
+                name, namespace, new V1Patch(patch), null, null, null, null, null),
+        V1Patch.PATCH_FORMAT_JSON_PATCH,
+        api.getApiClient());
+  }
+
   @Override
   public V1alpha1PipelineConfig create(V1alpha1PipelineConfig pipelineConfig) {
     DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
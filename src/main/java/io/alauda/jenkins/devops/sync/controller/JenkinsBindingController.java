@@ -6,6 +6,7 @@ import io.alauda.devops.java.client.models.V1alpha1JenkinsBinding;
 import io.alauda.devops.java.client.models.V1alpha1JenkinsBindingList;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.InformerSnapshots;
 import io.alauda.jenkins.devops.sync.client.JenkinsBindingClient;
 import io.alauda.jenkins.devops.sync.tasks.period.ConnectionAliveDetectTask;
 import io.kubernetes.client.extended.controller.Controller;
@@ -15,16 +16,12 @@ import io.kubernetes.client.extended.controller.reconciler.Request;
 import io.kubernetes.client.extended.controller.reconciler.Result;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
-import io.kubernetes.client.openapi.ApiException;
-import java.time.LocalDateTime;
 import java.util.concurrent.TimeUnit;
 
 @Extension
 public class JenkinsBindingController
     implements ResourceController, ConnectionAliveDetectTask.HeartbeatResourceDetector {
 
-  private LocalDateTime lastEventComingTime;
-
   @Override
   public void add(ControllerManagerBuilder managerBuilder, SharedInformerFactory factory) {
     DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
@@ -34,18 +31,20 @@ public class JenkinsBindingController
     if (informer == null) {
       informer =
           factory.sharedIndexInformerFor(
-              callGeneratorParams ->
-                  api.listJenkinsBindingForAllNamespacesCall(
-                      null,
-                      null,
-                      null,
-                      "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService(),
-                      null,
-                      null,
-                      callGeneratorParams.resourceVersion,
-                      callGeneratorParams.timeoutSeconds,
-                      callGeneratorParams.watch,
-                      null),
+              InformerSnapshots.wrap(
+                  V1alpha1JenkinsBinding.class,
+                  callGeneratorParams ->
+                      api.listJenkinsBindingForAllNamespacesCall(
+                          null,
+                          null,
+                          null,
+                          "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService(),
+                          null,
+                          null,
+                          callGeneratorParams.resourceVersion,
+                          callGeneratorParams.timeoutSeconds,
+                          callGeneratorParams.watch,
+                          null)),
               V1alpha1JenkinsBinding.class,
               V1alpha1JenkinsBindingList.class,
               TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod()));
@@ -65,16 +64,7 @@ public class JenkinsBindingController
                                 new Request(
                                     jenkinsBinding.getMetadata().getName(),
                                     jenkinsBinding.getMetadata().getNamespace()))
-                        .withOnUpdateFilter(
-                            (oldJenkinsBinding, newJenkinsBinding) -> {
-                              if (!oldJenkinsBinding
-                                  .getMetadata()
-                                  .getResourceVersion()
-                                  .equals(newJenkinsBinding.getMetadata().getResourceVersion())) {
-                                lastEventComingTime = LocalDateTime.now();
-                              }
-                              return true;
-                            })
+                        .withOnUpdateFilter((oldJenkinsBinding, newJenkinsBinding) -> true)
                         .build())
             .withReconciler(request -> new Result(false))
             .withName("JenkinsBindingController")
@@ -84,28 +74,13 @@ public class JenkinsBindingController
     managerBuilder.addController(controller);
   }
 
-  @Override
-  public LocalDateTime lastEventComingTime() {
-    return lastEventComingTime;
-  }
-
   @Override
   public String resourceName() {
     return "JenkinsBinding";
   }
 
   @Override
-  public boolean hasResourceExists() throws ApiException {
-    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-    V1alpha1JenkinsBindingList bindingList =
-        api.listJenkinsBindingForAllNamespaces(null, null, null, null, 1, null, "0", null, null);
-
-    if (bindingList == null
-        || bindingList.getItems() == null
-        || bindingList.getItems().size() == 0) {
-      return false;
-    }
-
-    return true;
+  public String watchedResource() {
+    return "jenkinsbindings";
   }
 }
@@ -6,12 +6,16 @@ import hudson.PluginManager;
 import hudson.model.Label;
 import hudson.model.Node;
 import hudson.model.UpdateSite;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.*;
 import io.alauda.devops.java.client.utils.DeepCopyUtils;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
 import io.alauda.jenkins.devops.sync.constants.Constants;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedReconciler;
 import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.tasks.period.ConnectionAliveDetectTask;
 import io.kubernetes.client.extended.controller.Controller;
@@ -20,25 +24,24 @@ import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder
 import io.kubernetes.client.extended.controller.reconciler.Reconciler;
 import io.kubernetes.client.extended.controller.reconciler.Request;
 import io.kubernetes.client.extended.controller.reconciler.Result;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.ratelimiter.BucketRateLimiter;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.informer.cache.Lister;
-import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.JSON;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
 import jenkins.plugins.linkedjobs.actions.LabelDashboardAction;
 import jenkins.plugins.linkedjobs.model.LabelAtomData;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,8 +53,16 @@ public class JenkinsController
   private static final Logger logger = LoggerFactory.getLogger(JenkinsController.class);
   private static final String CONTROLLER_NAME = "JenkinsController";
 
+  // the conditions will be refreshed after this period even if the status not changed
+  private static final long STATUS_RESYNC_PERIOD = TimeUnit.MINUTES.toMillis(10);
+  private static final long STATUS_SUMMARY_INTERVAL_SECONDS = 60;
+
   private RateLimitingQueue<Request> queue;
-  private LocalDateTime lastEventComingTime;
+
+  // labels and plugins status are expensive to compute, so we compute them in background and the
+  // reconciler only updates the Jenkins resource when they changed
+  private volatile StatusSummary statusSummary;
+  private ScheduledExecutorService statusSummaryExecutor;
 
   @Override
   public void add(ControllerManagerBuilder managerBuilder, SharedInformerFactory factory) {
@@ -80,7 +91,8 @@ public class JenkinsController
     }
 
     queue =
-        new DefaultRateLimitingQueue<>(
+        new InstrumentedRateLimitingQueue<>(
+            "jenkins",
             Executors.newSingleThreadExecutor(),
             new BucketRateLimiter<>(1, 1, Duration.ofMinutes(5)));
 
@@ -115,13 +127,6 @@ public class JenkinsController
                         .withOnUpdateFilter(
                             (oldJenkins, newJenkins) -> {
                               Metrics.incomingRequestCounter.labels("jenkins", "update").inc();
-                              if (!oldJenkins
-                                  .getMetadata()
-                                  .getResourceVersion()
-                                  .equals(newJenkins.getMetadata().getResourceVersion())) {
-                                lastEventComingTime = LocalDateTime.now();
-                              }
-
                               String configuredJenkinsServiceName =
                                   AlaudaSyncGlobalConfiguration.get().getJenkinsService();
                               if (!newJenkins
@@ -145,15 +150,60 @@ public class JenkinsController
                         .build())
             .withWorkerCount(1)
             .withName(CONTROLLER_NAME)
-            .withReconciler(new JenkinsReconciler(new Lister<>(informer.getIndexer())))
+            .withReconciler(
+                new InstrumentedReconciler(
+                    "jenkins", new JenkinsReconciler(new Lister<>(informer.getIndexer()))))
             .build();
 
-    managerBuilder.addController(controller);
+    // the summary is computed as long as the controller is running
+    managerBuilder.addController(
+        new Controller() {
+          @Override
+          public void run() {
+            controller.run();
+          }
+
+          @Override
+          public void shutdown() {
+            controller.shutdown();
+            stopStatusSummary();
+          }
+        });
+    startStatusSummary();
   }
 
-  @Override
-  public LocalDateTime lastEventComingTime() {
-    return lastEventComingTime;
+  private synchronized void startStatusSummary() {
+    if (statusSummaryExecutor != null) {
+      return;
+    }
+
+    statusSummaryExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "JenkinsStatusSummary"));
+    statusSummaryExecutor.scheduleWithFixedDelay(
+        () -> {
+          try {
+            refreshStatusSummary();
+          } catch (RuntimeException e) {
+            logger.warn(
+                "[{}] Failed to compute Jenkins status, reason {}",
+                CONTROLLER_NAME,
+                e.getMessage());
+          }
+        },
+        0,
+        STATUS_SUMMARY_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  private synchronized void stopStatusSummary() {
+    if (statusSummaryExecutor == null) {
+      return;
+    }
+
+    statusSummaryExecutor.shutdownNow();
+    statusSummaryExecutor = null;
+    statusSummary = null;
   }
 
   @Override
@@ -162,18 +212,202 @@ public class JenkinsController
   }
 
   @Override
-  public boolean hasResourceExists() throws ApiException {
-    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-    V1alpha1JenkinsList jenkinsList =
-        api.listJenkins(null, null, null, null, null, 1, "0", null, null);
+  public String watchedResource() {
+    return "jenkinses";
+  }
+
+  /**
+   * Compute the labels and plugins summaries and trigger a reconcile if they changed since last
+   * computation. Runs on the summary thread, the reconciler only computes it when no summary
+   * available yet.
+   */
+  private synchronized StatusSummary refreshStatusSummary() {
+    StatusSummary previous = statusSummary;
+    StatusSummary summary = new StatusSummary(computeLabelsStatus(), computePluginsStatus());
+    statusSummary = summary;
+
+    if (previous != null && !previous.hash.equals(summary.hash) && queue != null) {
+      logger.debug("[{}] Jenkins status changed, will update Jenkins resource", CONTROLLER_NAME);
+      queue.add(new Request(AlaudaSyncGlobalConfiguration.get().getJenkinsService()));
+    }
+    return summary;
+  }
+
+  private String computeLabelsStatus() {
+    logger.debug("Starting find all active labels from Jenkins");
+    ExtensionList<LabelDashboardAction> labelActions =
+        ExtensionList.lookup(LabelDashboardAction.class);
 
-    if (jenkinsList == null
-        || jenkinsList.getItems() == null
-        || jenkinsList.getItems().size() == 0) {
+    List<String> labels = new LinkedList<>();
+    if (labelActions.size() == 0) {
+      logger.warn(
+          "Cannot to get labels from Label Linked Jobs plugin, reason: unable to load LabelDashboardAction");
+    } else {
+      LabelDashboardAction labelDashboardAction = labelActions.get(0);
+      labelDashboardAction.getRefresh();
+
+      labels.addAll(
+          labelDashboardAction
+              .getLabelsData()
+              .stream()
+              .map(LabelAtomData::getLabel)
+              .collect(Collectors.toList()));
+    }
+
+    labels.addAll(
+        Jenkins.getInstance()
+            .getLabels()
+            .stream()
+            .flatMap(label -> label.listAtoms().stream())
+            .map(Label::getName)
+            .collect(Collectors.toList()));
+
+    labels = labels.stream().distinct().collect(Collectors.toList());
+
+    labels = removeUnavailableLabels(labels);
+
+    logger.debug("Found {} labels", labels.size());
+
+    NodeList nodeList = new NodeList();
+    nodeList.setLabels(labels);
+    return new JSON().serialize(nodeList);
+  }
+
+  private List<String> removeUnavailableLabels(List<String> labels) {
+    List<Node> nodes = Jenkins.getInstance().getNodes();
+    // Jenkins.getInstance().getNodes() will return all nodes except Jenkins itself
+    nodes.add(Jenkins.getInstance());
+
+    List<String> unavailableFromStaticNodes =
+        nodes
+            .stream()
+            .filter(node -> node.getNumExecutors() <= 0)
+            .flatMap(node -> Label.parse(node.getLabelString()).stream().map(Label::getName))
+            .collect(Collectors.toList());
+
+    logger.debug("labels {}", unavailableFromStaticNodes);
+
+    return labels
+        .stream()
+        .filter(label -> !unavailableFromStaticNodes.contains(label))
+        .collect(Collectors.toList());
+  }
+
+  private String computePluginsStatus() {
+    logger.debug("Starting to list plugin status");
+    List<PluginStatus> pluginStatusList = getPluginsStatus();
+    logger.debug("Found {} plugins", pluginStatusList.size());
+
+    PluginList pluginList = new PluginList();
+    pluginList.setPlugins(pluginStatusList);
+    return new JSON().serialize(pluginList);
+  }
+
+  private List<PluginStatus> getPluginsStatus() {
+    PluginManager pluginManager = Jenkins.getInstance().getPluginManager();
+    List<PluginStatus> pluginStatusList = new LinkedList<>();
+
+    // add failed plugins' status to condition
+    pluginManager
+        .getFailedPlugins()
+        .forEach(
+            failedPlugin -> {
+              PluginStatus pluginStatus = new PluginStatus();
+              pluginStatus.setName(failedPlugin.name);
+              pluginStatus.setDescription(failedPlugin.cause.getMessage());
+              pluginStatus.setStatus(Constants.JENKINS_PLUGIN_STATUS_FAILED);
+
+              pluginStatusList.add(pluginStatus);
+            });
+
+    pluginManager
+        .getPlugins()
+        .forEach(
+            plugin -> {
+              PluginStatus pluginStatus = new PluginStatus();
+              pluginStatus.setName(plugin.getLongName());
+
+              UpdateSite.Plugin pluginInfo = plugin.getInfo();
+              if (pluginInfo != null) {
+                pluginStatus.setDescription(pluginInfo.excerpt);
+              }
+
+              pluginStatus.setVersion(plugin.getVersion());
+              pluginStatus.setStatus(
+                  plugin.isActive()
+                      ? Constants.JENKINS_PLUGIN_STATUS_ACTIVE
+                      : Constants.JENKINS_PLUGIN_STATUS_INACTIVE);
+              pluginStatus.setUpdatable(plugin.hasUpdate());
+
+              pluginStatusList.add(pluginStatus);
+            });
+    return pluginStatusList;
+  }
+
+  /**
+   * The status is up to date if both conditions already hold the summary and were updated
+   * recently. We still refresh the conditions periodically, so the last attempt time won't be
+   * too old for the ones who rely on it.
+   */
+  static boolean isStatusUpToDate(V1alpha1Jenkins jenkins, String labels, String plugins) {
+    if (jenkins.getStatus() == null || jenkins.getStatus().getConditions() == null) {
       return false;
     }
 
-    return true;
+    return isConditionUpToDate(
+            jenkins.getStatus().getConditions(), Constants.JENKINS_NODES_CONDITION, labels)
+        && isConditionUpToDate(
+            jenkins.getStatus().getConditions(), Constants.JENKINS_PLUGINS_CONDITION, plugins);
+  }
+
+  private static boolean isConditionUpToDate(
+      List<V1alpha1BindingCondition> conditions, String conditionName, String status) {
+    return conditions
+        .stream()
+        .filter(
+            condition ->
+                Constants.JENKINS_CONDITION_STATUS_TYPE.equals(condition.getType())
+                    && conditionName.equals(condition.getName()))
+        .anyMatch(
+            condition ->
+                status.equals(condition.getMessage())
+                    && condition.getLastAttempt() != null
+                    && condition.getLastAttempt().plus(STATUS_RESYNC_PERIOD).isAfterNow());
+  }
+
+  static void addJenkinsStatusCondition(
+      V1alpha1Jenkins jenkins, String status, String conditionName) {
+    V1alpha1JenkinsStatus jenkinsStatus = jenkins.getStatus();
+    if (jenkinsStatus == null) {
+      jenkins.setStatus(new V1alpha1JenkinsStatus());
+    }
+
+    List<V1alpha1BindingCondition> conditions = jenkins.getStatus().getConditions();
+    if (conditions == null) {
+      conditions = new LinkedList<>();
+      jenkins.getStatus().setConditions(conditions);
+    }
+
+    conditions.removeIf(
+        condition ->
+            condition.getType().equals(Constants.JENKINS_CONDITION_STATUS_TYPE)
+                && condition.getName().equals(conditionName));
+
+    Optional<V1alpha1BindingCondition> conditionOptional =
+        conditions.stream().filter(c -> conditionName.equals(c.getName())).findAny();
+
+    V1alpha1BindingCondition condition = null;
+    if (conditionOptional.isPresent()) {
+      condition = conditionOptional.get();
+    } else {
+      condition = new V1alpha1BindingCondition();
+      condition.setName(conditionName);
+      condition.setType(Constants.JENKINS_CONDITION_STATUS_TYPE);
+      conditions.add(condition);
+    }
+
+    condition.setMessage(status);
+    condition.setLastAttempt(new DateTime());
   }
 
   private class JenkinsReconciler implements Reconciler {
@@ -209,173 +443,53 @@ public class JenkinsController
         return new Result(false);
       }
 
+      StatusSummary summary = statusSummary;
+      if (summary == null) {
+        summary = refreshStatusSummary();
+      }
+
+      if (isStatusUpToDate(jenkins, summary.labels, summary.plugins)) {
+        logger.debug(
+            "[{}] Status of Jenkins '{}' not changed, will skip update",
+            CONTROLLER_NAME,
+            jenkinsName);
+        Metrics.jenkinsStatusUpdateCounter.labels("skipped").inc();
+        return new Result(false);
+      }
+
       V1alpha1Jenkins jenkinsCopy = DeepCopyUtils.deepCopy(jenkins);
 
       logger.debug("[{}] Add labels status to Jenkins '{}'", CONTROLLER_NAME, jenkinsCopy);
-      addLabelsCondition(jenkinsCopy);
+      addJenkinsStatusCondition(jenkinsCopy, summary.labels, Constants.JENKINS_NODES_CONDITION);
       logger.debug("[{}] Add plugins status to Jenkins '{}'", CONTROLLER_NAME, jenkinsCopy);
-      addPluginsCondition(jenkinsCopy);
+      addJenkinsStatusCondition(jenkinsCopy, summary.plugins, Constants.JENKINS_PLUGINS_CONDITION);
       logger.debug("[{}] Add warnings status to Jenkins '{}'", CONTROLLER_NAME, jenkinsCopy);
       addWarningsCondition(jenkinsCopy);
 
       boolean succeed = JenkinsClient.getInstance().updateJenkins(jenkins, jenkinsCopy);
 
       if (!succeed) {
+        Metrics.jenkinsStatusUpdateCounter.labels("failed").inc();
         return new Result(true);
       }
+      Metrics.jenkinsStatusUpdateCounter.labels("patched").inc();
       return new Result(false);
     }
 
-    private void addLabelsCondition(V1alpha1Jenkins jenkins) {
-      logger.debug("Starting find all active labels from Jenkins");
-      ExtensionList<LabelDashboardAction> labelActions =
-          ExtensionList.lookup(LabelDashboardAction.class);
-
-      List<String> labels = new LinkedList<>();
-      if (labelActions.size() == 0) {
-        logger.warn(
-            "Cannot to get labels from Label Linked Jobs plugin, reason: unable to load LabelDashboardAction");
-      } else {
-        LabelDashboardAction labelDashboardAction = labelActions.get(0);
-        labelDashboardAction.getRefresh();
-
-        labels.addAll(
-            labelDashboardAction
-                .getLabelsData()
-                .stream()
-                .map(LabelAtomData::getLabel)
-                .collect(Collectors.toList()));
-      }
-
-      labels.addAll(
-          Jenkins.getInstance()
-              .getLabels()
-              .stream()
-              .flatMap(label -> label.listAtoms().stream())
-              .map(Label::getName)
-              .collect(Collectors.toList()));
-
-      labels = labels.stream().distinct().collect(Collectors.toList());
-
-      labels = removeUnavailableLabels(labels);
-
-      logger.debug("Found {} labels", labels.size());
-
-      NodeList nodeList = new NodeList();
-      nodeList.setLabels(labels);
-      addJenkinsStatusCondition(
-          jenkins, new JSON().serialize(nodeList), Constants.JENKINS_NODES_CONDITION);
-    }
-
-    private List<String> removeUnavailableLabels(List<String> labels) {
-      List<Node> nodes = Jenkins.getInstance().getNodes();
-      // Jenkins.getInstance().getNodes() will return all nodes except Jenkins itself
-      nodes.add(Jenkins.getInstance());
-
-      List<String> unavailableFromStaticNodes =
-          nodes
-              .stream()
-              .filter(node -> node.getNumExecutors() <= 0)
-              .flatMap(node -> Label.parse(node.getLabelString()).stream().map(Label::getName))
-              .collect(Collectors.toList());
-
-      logger.debug("labels {}", unavailableFromStaticNodes);
-
-      return labels
-          .stream()
-          .filter(label -> !unavailableFromStaticNodes.contains(label))
-          .collect(Collectors.toList());
-    }
-
-    private void addPluginsCondition(V1alpha1Jenkins jenkins) {
-      logger.debug("Starting to list plugin status");
-      List<PluginStatus> pluginStatusList = getPluginsStatus();
-      logger.debug("Found {} plugins", pluginStatusList.size());
-
-      PluginList pluginList = new PluginList();
-      pluginList.setPlugins(pluginStatusList);
-      addJenkinsStatusCondition(
-          jenkins, new JSON().serialize(pluginList), Constants.JENKINS_PLUGINS_CONDITION);
-    }
-
-    private void addJenkinsStatusCondition(
-        V1alpha1Jenkins jenkins, String status, String conditionName) {
-      V1alpha1JenkinsStatus jenkinsStatus = jenkins.getStatus();
-      if (jenkinsStatus == null) {
-        jenkins.setStatus(new V1alpha1JenkinsStatus());
-      }
-
-      List<V1alpha1BindingCondition> conditions = jenkins.getStatus().getConditions();
-      if (conditions == null) {
-        conditions = new LinkedList<>();
-        jenkins.getStatus().setConditions(conditions);
-      }
-
-      conditions.removeIf(
-          condition ->
-              condition.getType().equals(Constants.JENKINS_CONDITION_STATUS_TYPE)
-                  && condition.getName().equals(conditionName));
-
-      Optional<V1alpha1BindingCondition> conditionOptional =
-          conditions.stream().filter(c -> conditionName.equals(c.getName())).findAny();
-
-      V1alpha1BindingCondition condition = null;
-      if (conditionOptional.isPresent()) {
-        condition = conditionOptional.get();
-      } else {
-        condition = new V1alpha1BindingCondition();
-        condition.setName(conditionName);
-        condition.setType(Constants.JENKINS_CONDITION_STATUS_TYPE);
-        conditions.add(condition);
-      }
-
-      condition.setMessage(status);
-      condition.setLastAttempt(new DateTime());
-    }
-
     private void addWarningsCondition(V1alpha1Jenkins jenkins) {
       // TODO add warnings to Jenkins condition
     }
+  }
+
+  private static class StatusSummary {
+    private final String labels;
+    private final String plugins;
+    private final String hash;
 
-    private List<PluginStatus> getPluginsStatus() {
-      PluginManager pluginManager = Jenkins.getInstance().getPluginManager();
-      List<PluginStatus> pluginStatusList = new LinkedList<>();
-
-      // add failed plugins' status to condition
-      pluginManager
-          .getFailedPlugins()
-          .forEach(
-              failedPlugin -> {
-                PluginStatus pluginStatus = new PluginStatus();
-                pluginStatus.setName(failedPlugin.name);
-                pluginStatus.setDescription(failedPlugin.cause.getMessage());
-                pluginStatus.setStatus(Constants.JENKINS_PLUGIN_STATUS_FAILED);
-
-                pluginStatusList.add(pluginStatus);
-              });
-
-      pluginManager
-          .getPlugins()
-          .forEach(
-              plugin -> {
-                PluginStatus pluginStatus = new PluginStatus();
-                pluginStatus.setName(plugin.getLongName());
-
-                UpdateSite.Plugin pluginInfo = plugin.getInfo();
-                if (pluginInfo != null) {
-                  pluginStatus.setDescription(pluginInfo.excerpt);
-                }
-
-                pluginStatus.setVersion(plugin.getVersion());
-                pluginStatus.setStatus(
-                    plugin.isActive()
-                        ? Constants.JENKINS_PLUGIN_STATUS_ACTIVE
-                        : Constants.JENKINS_PLUGIN_STATUS_INACTIVE);
-                pluginStatus.setUpdatable(plugin.hasUpdate());
-
-                pluginStatusList.add(pluginStatus);
-              });
-      return pluginStatusList;
+    StatusSummary(String labels, String plugins) {
+      this.labels = labels;
+      this.plugins = plugins;
+      this.hash = DigestUtils.sha256Hex(labels + "\n" + plugins);
     }
   }
 
@@ -7,7 +7,10 @@ import hudson.security.ACLContext;
 import io.alauda.jenkins.devops.sync.AlaudaFolderProperty;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.InformerSnapshots;
 import io.alauda.jenkins.devops.sync.client.NamespaceClient;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedReconciler;
 import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.tasks.period.ConnectionAliveDetectTask;
 import io.kubernetes.client.extended.controller.Controller;
@@ -16,17 +19,14 @@ import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder
 import io.kubernetes.client.extended.controller.reconciler.Reconciler;
 import io.kubernetes.client.extended.controller.reconciler.Request;
 import io.kubernetes.client.extended.controller.reconciler.Result;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.informer.cache.Lister;
-import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1Namespace;
 import io.kubernetes.client.openapi.models.V1NamespaceList;
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import jenkins.model.Jenkins;
@@ -41,8 +41,6 @@ public class NamespaceController
   private static final String CONTROLLER_NAME = "NamespaceController";
   private RateLimitingQueue<Request> queue;
 
-  private LocalDateTime lastEventComingTime;
-
   @Override
   public void add(ControllerManagerBuilder managerBuilder, SharedInformerFactory factory) {
     CoreV1Api api = new CoreV1Api();
@@ -52,19 +50,21 @@ public class NamespaceController
     if (informer == null) {
       informer =
           factory.sharedIndexInformerFor(
-              callGeneratorParams ->
-                  api.listNamespaceCall(
-                      null,
-                      null,
-                      null,
-                      null,
-                      null,
-                      null,
-                      callGeneratorParams.resourceVersion,
-                      null,
-                      callGeneratorParams.timeoutSeconds,
-                      callGeneratorParams.watch,
-                      null),
+              InformerSnapshots.wrap(
+                  V1Namespace.class,
+                  callGeneratorParams ->
+                      api.listNamespaceCall(
+                          null,
+                          null,
+                          null,
+                          null,
+                          null,
+                          null,
+                          callGeneratorParams.resourceVersion,
+                          null,
+                          callGeneratorParams.timeoutSeconds,
+                          callGeneratorParams.watch,
+                          null)),
               V1Namespace.class,
               V1NamespaceList.class,
               TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod()));
@@ -73,7 +73,7 @@ public class NamespaceController
     NamespaceClient client = new NamespaceClient(informer);
     Clients.register(V1Namespace.class, client);
 
-    queue = new DefaultRateLimitingQueue<>(Executors.newSingleThreadExecutor());
+    queue = new InstrumentedRateLimitingQueue<>("namespace", Executors.newSingleThreadExecutor());
 
     Controller controller =
         ControllerBuilder.defaultBuilder(factory)
@@ -86,26 +86,26 @@ public class NamespaceController
                         .withOnAddFilter(
                             namespace -> {
                               Metrics.incomingRequestCounter.labels("namespace", "add").inc();
+                              ResourceControllerManager.getControllerManager()
+                                  .namespaceAdded(namespace.getMetadata().getName());
                               return false;
                             })
                         .withOnUpdateFilter(
                             (oldNs, newNs) -> {
-                              if (!oldNs
-                                  .getMetadata()
-                                  .getResourceVersion()
-                                  .equals(newNs.getMetadata().getResourceVersion())) {
-                                lastEventComingTime = LocalDateTime.now();
-                              }
                               Metrics.incomingRequestCounter.labels("namespace", "update").inc();
                               return false;
                             })
                         .withOnDeleteFilter(
                             (namespace, includeUninitialized) -> {
                               Metrics.incomingRequestCounter.labels("namespace", "delete").inc();
+                              ResourceControllerManager.getControllerManager()
+                                  .namespaceDeleted(namespace.getMetadata().getName());
                               return true;
                             })
                         .build())
-            .withReconciler(new NamespaceReconciler(new Lister<>(informer.getIndexer())))
+            .withReconciler(
+                new InstrumentedReconciler(
+                    "namespace", new NamespaceReconciler(new Lister<>(informer.getIndexer()))))
             .withName(CONTROLLER_NAME)
             .withWorkerCount(1)
             .build();
@@ -113,29 +113,14 @@ public class NamespaceController
     managerBuilder.addController(controller);
   }
 
-  @Override
-  public LocalDateTime lastEventComingTime() {
-    return lastEventComingTime;
-  }
-
   @Override
   public String resourceName() {
     return "Namespace";
   }
 
   @Override
-  public boolean hasResourceExists() throws ApiException {
-    CoreV1Api api = new CoreV1Api();
-    V1NamespaceList namespaceList =
-        api.listNamespace(null, null, null, null, null, 1, "0", null, null, null);
-
-    if (namespaceList == null
-        || namespaceList.getItems() == null
-        || namespaceList.getItems().size() == 0) {
-      return false;
-    }
-
-    return true;
+  public String watchedResource() {
+    return "namespaces";
   }
 
   class NamespaceReconciler implements Reconciler {
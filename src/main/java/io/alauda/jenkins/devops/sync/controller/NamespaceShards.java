@@ -0,0 +1,399 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
+import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.ResourceClient;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoordinationV1Api;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1DeleteOptions;
+import io.kubernetes.client.openapi.models.V1Lease;
+import io.kubernetes.client.openapi.models.V1LeaseList;
+import io.kubernetes.client.openapi.models.V1LeaseSpec;
+import io.kubernetes.client.openapi.models.V1Namespace;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import jenkins.model.identity.IdentityRootAction;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Splits namespaces among the Jenkins masters that serve the same Jenkins service. Every master
+ * holds a Lease labeled with the Jenkins service and renews it periodically. The owner of a
+ * namespace is chosen from the live masters by rendezvous hashing, so only the namespaces of the
+ * joined or left master move when the members change.
+ *
+ * <p>A master is alive if we observed a new resourceVersion of its Lease within the lease
+ * duration, so the clocks of masters don't need to be synchronized. When sharding is disabled,
+ * all namespaces are owned by this master.
+ */
+public class NamespaceShards {
+  private static final Logger logger = LoggerFactory.getLogger(NamespaceShards.class);
+
+  private static final String SHARD_LABEL = "jenkins-sync-shard";
+  private static final int LEASE_DURATION_SECONDS = 30;
+  private static final int RENEW_INTERVAL_SECONDS = 10;
+
+  private static final NamespaceShards instance = new NamespaceShards();
+
+  private volatile boolean enabled;
+  // replaced as a whole when members changed, so ownership is never computed from stale members
+  private volatile Membership membership = new Membership(Collections.emptyList());
+  private final Map<String, ObservedLease> observedLeases = new HashMap<>();
+
+  private final LongSupplier clock;
+  private final Consumer<List<String>> onMembersChanged;
+
+  private String jenkinsService;
+  private String leaseNamespace;
+  private String leaseName;
+  private String renewAnnotation;
+  private long lastRenewTime;
+  private ScheduledExecutorService renewExecutor;
+
+  private NamespaceShards() {
+    this.clock = System::currentTimeMillis;
+    this.onMembersChanged = this::membersChanged;
+  }
+
+  /**
+   * Create an enabled instance that holds the Lease without renewing it periodically, {@link
+   * #renewQuietly()} should be called to renew it.
+   *
+   * @param jenkinsService name of the Jenkins service
+   * @param leaseNamespace namespace of the Leases
+   * @param leaseName name of the Lease of this master
+   * @param renewAnnotation annotation updated on every renew
+   * @param clock current time in millis
+   * @param onMembersChanged called with the new members when they changed
+   */
+  NamespaceShards(
+      String jenkinsService,
+      String leaseNamespace,
+      String leaseName,
+      String renewAnnotation,
+      LongSupplier clock,
+      Consumer<List<String>> onMembersChanged) {
+    this.jenkinsService = jenkinsService;
+    this.leaseNamespace = leaseNamespace;
+    this.leaseName = leaseName;
+    this.renewAnnotation = renewAnnotation;
+    this.clock = clock;
+    this.onMembersChanged = onMembersChanged;
+    this.enabled = true;
+  }
+
+  public static NamespaceShards getInstance() {
+    return instance;
+  }
+
+  /**
+   * Start or stop holding the Lease according to the global configuration. The first renew is
+   * done before returning, so controllers started after this will see the members.
+   */
+  public synchronized void configure() {
+    AlaudaSyncGlobalConfiguration config = AlaudaSyncGlobalConfiguration.get();
+    if (!config.isShardingEnabled()) {
+      stop();
+      return;
+    }
+
+    if (enabled
+        && StringUtils.equals(jenkinsService, config.getJenkinsService())
+        && StringUtils.equals(leaseNamespace, config.getShardLeaseNamespace())) {
+      return;
+    }
+
+    stop();
+    jenkinsService = config.getJenkinsService();
+    leaseNamespace = config.getShardLeaseNamespace();
+    leaseName =
+        String.format(
+            "%s-%s",
+            jenkinsService,
+            new IdentityRootAction().getFingerprint().replace(":", "").toLowerCase());
+    renewAnnotation =
+        ResourceControllerManager.getControllerManager()
+            .getFormattedAnnotation("jenkins.shard.renew")
+            .get();
+    enabled = true;
+
+    renewQuietly();
+    renewExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "NamespaceShards"));
+    renewExecutor.scheduleWithFixedDelay(
+        this::renewQuietly, RENEW_INTERVAL_SECONDS, RENEW_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    logger.info(
+        "[NamespaceShards] Sharding enabled, holding Lease '{}/{}', members {}",
+        leaseNamespace,
+        leaseName,
+        membership.members);
+  }
+
+  /** Stop renewing and release our Lease, so that other masters take over our namespaces. */
+  public synchronized void stop() {
+    if (!enabled) {
+      return;
+    }
+
+    enabled = false;
+    if (renewExecutor != null) {
+      renewExecutor.shutdownNow();
+      renewExecutor = null;
+    }
+    updateMembers(Collections.emptyList());
+    observedLeases.clear();
+
+    try {
+      new CoordinationV1Api()
+          .deleteNamespacedLease(
+              leaseName, leaseNamespace, null, null, null, null, null, new V1DeleteOptions());
+    } catch (ApiException e) {
+      logger.warn(
+          "[NamespaceShards] Failed to release Lease '{}/{}', reason {}",
+          leaseNamespace,
+          leaseName,
+          e.getMessage());
+    }
+  }
+
+  @Terminator
+  public static void release() {
+    instance.stop();
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param namespace namespace to check
+   * @return true if this master should sync the resources in the namespace
+   */
+  public boolean isOwned(String namespace) {
+    if (!enabled) {
+      return true;
+    }
+    Membership current = membership;
+    return current.ownedNamespaces.computeIfAbsent(
+        namespace, ns -> leaseName.equals(ownerOf(current.members, ns)));
+  }
+
+  /**
+   * Namespaces are read from the namespace informer if it has synced, otherwise listed from
+   * apiserver. If the list failed, namespaces will be added once the namespace informer receives
+   * them, see {@link ResourceControllerManager#namespaceAdded(String)}.
+   *
+   * @return namespaces owned by this master
+   */
+  public Set<String> ownedNamespaces() {
+    List<V1Namespace> namespaces;
+    ResourceClient<V1Namespace> client = Clients.get(V1Namespace.class);
+    if (client != null && client.informer().hasSynced()) {
+      namespaces = client.lister().list();
+    } else {
+      try {
+        namespaces =
+            new CoreV1Api()
+                .listNamespace(null, null, null, null, null, null, "0", null, null, null)
+                .getItems();
+      } catch (ApiException e) {
+        logger.warn("[NamespaceShards] Failed to list namespaces, reason {}", e.getMessage());
+        return Collections.emptySet();
+      }
+    }
+
+    return namespaces
+        .stream()
+        .map(namespace -> namespace.getMetadata().getName())
+        .filter(this::isOwned)
+        .collect(Collectors.toSet());
+  }
+
+  public List<String> getMembers() {
+    return membership.members;
+  }
+
+  /**
+   * Choose the owner of the namespace by rendezvous hashing.
+   *
+   * @param members names of the live members
+   * @param namespace namespace to check
+   * @return the member owns the namespace, null if there is no member
+   */
+  @CheckForNull
+  static String ownerOf(List<String> members, String namespace) {
+    String owner = null;
+    long maxWeight = Long.MIN_VALUE;
+    for (String member : members) {
+      long weight =
+          ByteBuffer.wrap(
+                  DigestUtils.md5((member + "/" + namespace).getBytes(StandardCharsets.UTF_8)))
+              .getLong();
+      if (owner == null || weight > maxWeight) {
+        owner = member;
+        maxWeight = weight;
+      }
+    }
+    return owner;
+  }
+
+  synchronized void renewQuietly() {
+    if (!enabled) {
+      return;
+    }
+
+    try {
+      renew();
+    } catch (ApiException e) {
+      logger.warn(
+          "[NamespaceShards] Failed to renew Lease '{}/{}', reason {}",
+          leaseNamespace,
+          leaseName,
+          e.getMessage());
+      // we cannot know the other members, release all namespaces once our Lease expired
+      if (clock.getAsLong() - lastRenewTime > LEASE_DURATION_SECONDS * 1000L) {
+        updateMembers(Collections.emptyList());
+      }
+    }
+  }
+
+  private void renew() throws ApiException {
+    CoordinationV1Api api = new CoordinationV1Api();
+    V1Lease lease = null;
+    try {
+      lease = api.readNamespacedLease(leaseName, leaseNamespace, null, null, null);
+    } catch (ApiException e) {
+      if (e.getCode() != 404) {
+        throw e;
+      }
+    }
+
+    if (lease == null) {
+      lease =
+          new V1Lease()
+              .metadata(
+                  new V1ObjectMeta()
+                      .name(leaseName)
+                      .namespace(leaseNamespace)
+                      .putLabelsItem(SHARD_LABEL, jenkinsService)
+                      .putAnnotationsItem(
+                          renewAnnotation, String.valueOf(clock.getAsLong())))
+              .spec(
+                  new V1LeaseSpec()
+                      .holderIdentity(leaseName)
+                      .leaseDurationSeconds(LEASE_DURATION_SECONDS));
+      api.createNamespacedLease(leaseNamespace, lease, null, null, null);
+    } else {
+      // the annotation changes the resourceVersion, which is what other masters observe
+      lease
+          .getMetadata()
+          .putAnnotationsItem(renewAnnotation, String.valueOf(clock.getAsLong()));
+      api.replaceNamespacedLease(leaseName, leaseNamespace, lease, null, null, null);
+    }
+    lastRenewTime = clock.getAsLong();
+
+    V1LeaseList leases =
+        api.listNamespacedLease(
+            leaseNamespace,
+            null,
+            null,
+            null,
+            null,
+            SHARD_LABEL + "=" + jenkinsService,
+            null,
+            null,
+            null,
+            null,
+            null);
+
+    long now = clock.getAsLong();
+    Set<String> leaseNames = new HashSet<>();
+    List<String> aliveMembers = new ArrayList<>();
+    for (V1Lease item : leases.getItems()) {
+      String name = item.getMetadata().getName();
+      String resourceVersion = item.getMetadata().getResourceVersion();
+      leaseNames.add(name);
+
+      ObservedLease observed = observedLeases.get(name);
+      if (observed == null || !observed.resourceVersion.equals(resourceVersion)) {
+        observed = new ObservedLease(resourceVersion, now);
+        observedLeases.put(name, observed);
+      }
+
+      int duration = LEASE_DURATION_SECONDS;
+      if (item.getSpec() != null && item.getSpec().getLeaseDurationSeconds() != null) {
+        duration = item.getSpec().getLeaseDurationSeconds();
+      }
+      if (name.equals(leaseName) || now - observed.observedTime <= duration * 1000L) {
+        aliveMembers.add(name);
+      }
+    }
+    observedLeases.keySet().retainAll(leaseNames);
+
+    Collections.sort(aliveMembers);
+    updateMembers(aliveMembers);
+  }
+
+  private void updateMembers(List<String> newMembers) {
+    List<String> members = membership.members;
+    if (newMembers.equals(members)) {
+      return;
+    }
+
+    logger.info("[NamespaceShards] Members changed from {} to {}", members, newMembers);
+    membership = new Membership(newMembers);
+    onMembersChanged.accept(membership.members);
+  }
+
+  private void membersChanged(List<String> members) {
+    Metrics.shardMembersGauge.set(members.size());
+
+    if (enabled) {
+      ResourceControllerManager.getControllerManager().rebalance();
+    }
+  }
+
+  private static class Membership {
+    private final List<String> members;
+    // owner of namespaces computed from the members
+    private final Map<String, Boolean> ownedNamespaces = new ConcurrentHashMap<>();
+
+    Membership(List<String> members) {
+      this.members = Collections.unmodifiableList(new ArrayList<>(members));
+    }
+  }
+
+  private static class ObservedLease {
+    private final String resourceVersion;
+    private final long observedTime;
+
+    ObservedLease(String resourceVersion, long observedTime) {
+      this.resourceVersion = resourceVersion;
+      this.observedTime = observedTime;
+    }
+  }
+}
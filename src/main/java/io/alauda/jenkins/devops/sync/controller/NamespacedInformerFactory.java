@@ -0,0 +1,67 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import io.alauda.jenkins.devops.sync.client.NamespacedInformer;
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.util.CallGenerator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Informer factory that also holds {@link NamespacedInformer}s. They are looked up, started and
+ * stopped like other informers of the factory, so controllers could watch them as usual.
+ */
+class NamespacedInformerFactory extends SharedInformerFactory {
+  private final Map<Class, NamespacedInformer> namespacedInformers = new HashMap<>();
+
+  /**
+   * Create an informer that only lists and watches the given namespaces.
+   *
+   * @param callGenerators list and watch call generator of a namespace
+   * @param apiTypeClass type of resource
+   * @param apiListTypeClass list type of resource
+   * @param resyncPeriod resync period in millis
+   * @param namespaces namespaces to watch
+   * @return the created informer
+   */
+  synchronized <ApiType extends KubernetesObject, ApiListType extends KubernetesListObject>
+      NamespacedInformer<ApiType, ApiListType> namespacedIndexInformerFor(
+          Function<String, CallGenerator> callGenerators,
+          Class<ApiType> apiTypeClass,
+          Class<ApiListType> apiListTypeClass,
+          long resyncPeriod,
+          Collection<String> namespaces) {
+    NamespacedInformer<ApiType, ApiListType> informer =
+        new NamespacedInformer<>(apiTypeClass, apiListTypeClass, callGenerators, resyncPeriod);
+    namespaces.forEach(informer::watchNamespace);
+    namespacedInformers.put(apiTypeClass, informer);
+    return informer;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public synchronized <ApiType extends KubernetesObject>
+      SharedIndexInformer<ApiType> getExistingSharedIndexInformer(Class<ApiType> apiTypeClass) {
+    NamespacedInformer informer = namespacedInformers.get(apiTypeClass);
+    if (informer != null) {
+      return informer;
+    }
+    return super.getExistingSharedIndexInformer(apiTypeClass);
+  }
+
+  @Override
+  public synchronized void startAllRegisteredInformers() {
+    super.startAllRegisteredInformers();
+    namespacedInformers.values().forEach(NamespacedInformer::run);
+  }
+
+  @Override
+  public synchronized void stopAllRegisteredInformers() {
+    super.stopAllRegisteredInformers();
+    namespacedInformers.values().forEach(NamespacedInformer::stop);
+  }
+}
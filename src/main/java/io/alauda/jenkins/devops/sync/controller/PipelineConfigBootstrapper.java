@@ -0,0 +1,182 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import io.alauda.devops.java.client.models.V1alpha1Condition;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.JenkinsClient;
+import io.alauda.jenkins.devops.sync.constants.Constants;
+import io.alauda.jenkins.devops.sync.exception.PipelineConfigConvertException;
+import io.alauda.jenkins.devops.sync.util.ConditionUtils;
+import io.alauda.jenkins.devops.sync.util.NamespaceName;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the missing Jenkins jobs for all PipelineConfigs in one pass before the controllers
+ * start. This is much faster than letting PipelineConfigController create thousands of jobs one
+ * reconcile at a time after a fresh boot or a migration.
+ *
+ * <p>Folders are created first, then jobs are created in parallel batches per namespace. It runs
+ * before the controller manager is marked as started, so our item listeners ignore the events and
+ * the jobs won't be synced back to PipelineConfigs.
+ */
+public class PipelineConfigBootstrapper {
+
+  private static final Logger logger = LoggerFactory.getLogger(PipelineConfigBootstrapper.class);
+
+  private static final int BATCH_SIZE = 50;
+  private static final long TIMEOUT_MINUTES = 30;
+
+  private final JenkinsClient jenkinsClient;
+
+  private final AtomicInteger total = new AtomicInteger();
+  private final AtomicInteger completed = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private volatile long startTime;
+  private volatile long endTime;
+
+  public PipelineConfigBootstrapper() {
+    this.jenkinsClient = JenkinsClient.getInstance();
+  }
+
+  /** Create all missing jobs, will block until all jobs created or timeout. */
+  public void bootstrap() {
+    List<V1alpha1PipelineConfig> pipelineConfigs =
+        Clients.get(V1alpha1PipelineConfig.class)
+            .lister()
+            .list()
+            .stream()
+            .filter(this::isInitialized)
+            .filter(pc -> NamespaceShards.getInstance().isOwned(pc.getMetadata().getNamespace()))
+            .filter(
+                pc ->
+                    jenkinsClient.getItem(
+                            new NamespaceName(
+                                pc.getMetadata().getNamespace(), pc.getMetadata().getName()))
+                        == null)
+            .collect(Collectors.toList());
+
+    startTime = System.currentTimeMillis();
+    endTime = 0;
+    total.set(pipelineConfigs.size());
+    completed.set(0);
+    failed.set(0);
+
+    if (pipelineConfigs.isEmpty()) {
+      logger.info("[PipelineConfigBootstrapper] No missing Jenkins job found, skip bootstrap");
+      endTime = System.currentTimeMillis();
+      return;
+    }
+
+    Map<String, List<V1alpha1PipelineConfig>> pipelineConfigsByNamespace =
+        pipelineConfigs
+            .stream()
+            .collect(Collectors.groupingBy(pc -> pc.getMetadata().getNamespace()));
+    logger.info(
+        "[PipelineConfigBootstrapper] Start to create {} Jenkins jobs in {} namespaces",
+        pipelineConfigs.size(),
+        pipelineConfigsByNamespace.size());
+
+    // create folders first, so that the workers won't race for the same folder
+    for (String namespace : pipelineConfigsByNamespace.keySet()) {
+      try {
+        jenkinsClient.upsertFolder(namespace);
+      } catch (IOException e) {
+        logger.warn(
+            "[PipelineConfigBootstrapper] Failed to create folder {}, reason {}",
+            namespace,
+            e.getMessage());
+      }
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+    pipelineConfigsByNamespace
+        .values()
+        .forEach(
+            pcs -> {
+              for (int i = 0; i < pcs.size(); i += BATCH_SIZE) {
+                List<V1alpha1PipelineConfig> batch =
+                    new ArrayList<>(pcs.subList(i, Math.min(i + BATCH_SIZE, pcs.size())));
+                executor.submit(() -> batch.forEach(this::createJob));
+              }
+            });
+    executor.shutdown();
+
+    try {
+      if (!executor.awaitTermination(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        logger.warn(
+            "[PipelineConfigBootstrapper] Timeout to wait for bootstrap, the rest jobs will be created by controller");
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+
+    endTime = System.currentTimeMillis();
+    logger.info("[PipelineConfigBootstrapper] Bootstrap finished, {}", getStatus());
+  }
+
+  private void createJob(V1alpha1PipelineConfig pipelineConfig) {
+    String namespace = pipelineConfig.getMetadata().getNamespace();
+    String name = pipelineConfig.getMetadata().getName();
+    try {
+      jenkinsClient.upsertJob(DeepCopyUtils.deepCopy(pipelineConfig));
+    } catch (PipelineConfigConvertException | IOException | RuntimeException e) {
+      failed.incrementAndGet();
+      logger.warn(
+          "[PipelineConfigBootstrapper] Failed to create Jenkins job for PipelineConfig '{}/{}', reason {}",
+          namespace,
+          name,
+          e.getMessage());
+    } finally {
+      completed.incrementAndGet();
+    }
+  }
+
+  private boolean isInitialized(V1alpha1PipelineConfig pipelineConfig) {
+    if (pipelineConfig.getStatus() == null) {
+      return false;
+    }
+
+    V1alpha1Condition initializedCondition =
+        ConditionUtils.getCondition(
+            pipelineConfig.getStatus().getConditions(),
+            Constants.PIPELINE_CONFIG_CONDITION_TYPE_INITIALIZED);
+    return initializedCondition != null
+        && Constants.CONDITION_STATUS_TRUE.equals(initializedCondition.getStatus());
+  }
+
+  public boolean isRunning() {
+    return startTime != 0 && endTime == 0;
+  }
+
+  /** @return the progress and throughput of the last bootstrap, empty if never started */
+  public String getStatus() {
+    if (startTime == 0) {
+      return "";
+    }
+
+    long end = endTime == 0 ? System.currentTimeMillis() : endTime;
+    double seconds = Math.max(end - startTime, 1) / 1000.0;
+    return String.format(
+        "%s %d/%d jobs (%d failed) in %.1fs, %.1f jobs/s",
+        isRunning() ? "Creating" : "Created",
+        completed.get(),
+        total.get(),
+        failed.get(),
+        seconds,
+        completed.get() / seconds);
+  }
+}
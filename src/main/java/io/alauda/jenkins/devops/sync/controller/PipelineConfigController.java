@@ -8,10 +8,13 @@ import io.alauda.devops.java.client.models.V1alpha1PipelineConfigList;
 import io.alauda.devops.java.client.utils.DeepCopyUtils;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.InformerSnapshots;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
 import io.alauda.jenkins.devops.sync.client.PipelineConfigClient;
 import io.alauda.jenkins.devops.sync.constants.Constants;
 import io.alauda.jenkins.devops.sync.exception.PipelineConfigConvertException;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedReconciler;
 import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.tasks.period.ConnectionAliveDetectTask;
 import io.alauda.jenkins.devops.sync.util.ConditionUtils;
@@ -23,14 +26,11 @@ import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder
 import io.kubernetes.client.extended.controller.reconciler.Reconciler;
 import io.kubernetes.client.extended.controller.reconciler.Request;
 import io.kubernetes.client.extended.controller.reconciler.Result;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.informer.cache.Lister;
-import io.kubernetes.client.openapi.ApiException;
 import java.io.IOException;
-import java.time.LocalDateTime;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.joda.time.DateTime;
@@ -44,7 +44,6 @@ public class PipelineConfigController
   private static final Logger logger = LoggerFactory.getLogger(PipelineConfigController.class);
   private static final String CONTROLLER_NAME = "PipelineConfigController";
 
-  private LocalDateTime lastEventComingTime;
   private RateLimitingQueue<Request> queue;
 
   @Override
@@ -54,29 +53,62 @@ public class PipelineConfigController
     SharedIndexInformer<V1alpha1PipelineConfig> informer =
         factory.getExistingSharedIndexInformer(V1alpha1PipelineConfig.class);
     if (informer == null) {
-      informer =
-          factory.sharedIndexInformerFor(
-              callGeneratorParams ->
-                  api.listPipelineConfigForAllNamespacesCall(
-                      null,
-                      null,
-                      null,
-                      "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService(),
-                      null,
-                      null,
-                      callGeneratorParams.resourceVersion,
-                      callGeneratorParams.timeoutSeconds,
-                      callGeneratorParams.watch,
-                      null),
-              V1alpha1PipelineConfig.class,
-              V1alpha1PipelineConfigList.class,
-              TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod()));
+      String labelSelector = "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService();
+      long resyncPeriod =
+          TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod());
+      if (NamespaceShards.getInstance().isEnabled()
+          && factory instanceof NamespacedInformerFactory) {
+        // only list and watch the owned namespaces, the informer will be rebuilt on rebalance
+        informer =
+            ((NamespacedInformerFactory) factory)
+                .namespacedIndexInformerFor(
+                    namespace ->
+                        callGeneratorParams ->
+                            api.listNamespacedPipelineConfigCall(
+                                namespace,
+                                null,
+                                null,
+                                null,
+                                null,
+                                labelSelector,
+                                null,
+                                callGeneratorParams.resourceVersion,
+                                callGeneratorParams.timeoutSeconds,
+                                callGeneratorParams.watch,
+                                null),
+                    V1alpha1PipelineConfig.class,
+                    V1alpha1PipelineConfigList.class,
+                    resyncPeriod,
+                    NamespaceShards.getInstance().ownedNamespaces());
+      } else {
+        informer =
+            factory.sharedIndexInformerFor(
+                InformerSnapshots.wrap(
+                    V1alpha1PipelineConfig.class,
+                    callGeneratorParams ->
+                        api.listPipelineConfigForAllNamespacesCall(
+                            null,
+                            null,
+                            null,
+                            labelSelector,
+                            null,
+                            null,
+                            callGeneratorParams.resourceVersion,
+                            callGeneratorParams.timeoutSeconds,
+                            callGeneratorParams.watch,
+                            null)),
+                V1alpha1PipelineConfig.class,
+                V1alpha1PipelineConfigList.class,
+                resyncPeriod);
+      }
     }
 
     PipelineConfigClient client = new PipelineConfigClient(informer);
     Clients.register(V1alpha1PipelineConfig.class, client);
 
-    queue = new DefaultRateLimitingQueue<>(Executors.newSingleThreadExecutor());
+    queue =
+        new InstrumentedRateLimitingQueue<>(
+            "pipeline_config", Executors.newSingleThreadExecutor());
 
     Controller controller =
         ControllerBuilder.defaultBuilder(factory)
@@ -93,6 +125,10 @@ public class PipelineConfigController
                         .withOnAddFilter(
                             pipelineConfig -> {
                               Metrics.incomingRequestCounter.labels("pipeline_config", "add").inc();
+                              if (!NamespaceShards.getInstance()
+                                  .isOwned(pipelineConfig.getMetadata().getNamespace())) {
+                                return false;
+                              }
 
                               logger.debug(
                                   "[{}] receives event: Add; PipelineConfig '{}/{}'",
@@ -116,7 +152,7 @@ public class PipelineConfigController
                                   namespace,
                                   name);
 
-                              return true;
+                              return NamespaceShards.getInstance().isOwned(namespace);
                             })
                         .withOnDeleteFilter(
                             (pipelineConfig, aBoolean) -> {
@@ -128,10 +164,14 @@ public class PipelineConfigController
                                   CONTROLLER_NAME,
                                   pipelineConfig.getMetadata().getNamespace(),
                                   pipelineConfig.getMetadata().getName());
-                              return true;
+                              return NamespaceShards.getInstance()
+                                  .isOwned(pipelineConfig.getMetadata().getNamespace());
                             })
                         .build())
-            .withReconciler(new PipelineConfigReconciler(new Lister<>(informer.getIndexer())))
+            .withReconciler(
+                new InstrumentedReconciler(
+                    "pipeline_config",
+                    new PipelineConfigReconciler(new Lister<>(informer.getIndexer()))))
             .withName(CONTROLLER_NAME)
             .withWorkerCount(4)
             .build();
@@ -139,25 +179,14 @@ public class PipelineConfigController
     managerBuilder.addController(controller);
   }
 
-  @Override
-  public LocalDateTime lastEventComingTime() {
-    return lastEventComingTime;
-  }
-
   @Override
   public String resourceName() {
     return "PipelineConfig";
   }
 
   @Override
-  public boolean hasResourceExists() throws ApiException {
-    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-    V1alpha1PipelineConfigList pipelineConfigList =
-        api.listPipelineConfigForAllNamespaces(null, null, null, null, 1, null, "0", null, null);
-
-    return pipelineConfigList != null
-        && pipelineConfigList.getItems() != null
-        && pipelineConfigList.getItems().size() != 0;
+  public String watchedResource() {
+    return "pipelineconfigs";
   }
 
   class PipelineConfigReconciler implements Reconciler {
@@ -172,8 +201,6 @@ public class PipelineConfigController
 
     @Override
     public Result reconcile(Request request) {
-      lastEventComingTime = LocalDateTime.now();
-
       Metrics.completedRequestCounter.labels("pipeline_config").inc();
       Metrics.remainedRequestsGauge.labels("pipeline_config").set(queue.length());
 
@@ -196,14 +223,23 @@ public class PipelineConfigController
                 getControllerName(),
                 namespace,
                 name);
+          } else {
+            Metrics.orphanJobsRemovedCounter.labels("event").inc();
           }
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
           logger.warn(
-              "[{}] Failed to delete job for PipelineConfig '{}/{}', reason {}",
+              "[{}] Failed to delete job for PipelineConfig '{}/{}', reason {}, will retry",
               getControllerName(),
               namespace,
               name,
               e.getMessage());
+          return new Result(true);
+        } catch (InterruptedException e) {
+          logger.warn(
+              "[{}] Interrupted while deleting job for PipelineConfig '{}/{}'",
+              getControllerName(),
+              namespace,
+              name);
           Thread.currentThread().interrupt();
         }
         return new Result(false);
@@ -14,10 +14,13 @@ import io.alauda.devops.java.client.models.V1alpha1PipelineList;
 import io.alauda.devops.java.client.utils.DeepCopyUtils;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.InformerSnapshots;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
 import io.alauda.jenkins.devops.sync.client.PipelineClient;
 import io.alauda.jenkins.devops.sync.exception.PipelineException;
 import io.alauda.jenkins.devops.sync.listener.PipelineSyncExecutor;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedReconciler;
 import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.tasks.period.ConnectionAliveDetectTask;
 import io.alauda.jenkins.devops.sync.util.ConditionUtils;
@@ -30,13 +33,10 @@ import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder
 import io.kubernetes.client.extended.controller.reconciler.Reconciler;
 import io.kubernetes.client.extended.controller.reconciler.Request;
 import io.kubernetes.client.extended.controller.reconciler.Result;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.informer.cache.Lister;
-import io.kubernetes.client.openapi.ApiException;
-import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -57,7 +57,6 @@ public class PipelineController
   private static final String CONTROLLER_NAME = "PipelineController";
 
   private RateLimitingQueue<Request> queue;
-  private LocalDateTime lastEventComingTime;
 
   @Override
   public void add(ControllerManagerBuilder managerBuilder, SharedInformerFactory factory) {
@@ -66,29 +65,60 @@ public class PipelineController
     SharedIndexInformer<V1alpha1Pipeline> informer =
         factory.getExistingSharedIndexInformer(V1alpha1Pipeline.class);
     if (informer == null) {
-      informer =
-          factory.sharedIndexInformerFor(
-              callGeneratorParams ->
-                  api.listPipelineForAllNamespacesCall(
-                      null,
-                      null,
-                      null,
-                      "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService(),
-                      null,
-                      null,
-                      callGeneratorParams.resourceVersion,
-                      callGeneratorParams.timeoutSeconds,
-                      callGeneratorParams.watch,
-                      null),
-              V1alpha1Pipeline.class,
-              V1alpha1PipelineList.class,
-              TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod()));
+      String labelSelector = "jenkins=" + AlaudaSyncGlobalConfiguration.get().getJenkinsService();
+      long resyncPeriod =
+          TimeUnit.MINUTES.toMillis(AlaudaSyncGlobalConfiguration.get().getResyncPeriod());
+      if (NamespaceShards.getInstance().isEnabled()
+          && factory instanceof NamespacedInformerFactory) {
+        // only list and watch the owned namespaces, the informer will be rebuilt on rebalance
+        informer =
+            ((NamespacedInformerFactory) factory)
+                .namespacedIndexInformerFor(
+                    namespace ->
+                        callGeneratorParams ->
+                            api.listNamespacedPipelineCall(
+                                namespace,
+                                null,
+                                null,
+                                null,
+                                null,
+                                labelSelector,
+                                null,
+                                callGeneratorParams.resourceVersion,
+                                callGeneratorParams.timeoutSeconds,
+                                callGeneratorParams.watch,
+                                null),
+                    V1alpha1Pipeline.class,
+                    V1alpha1PipelineList.class,
+                    resyncPeriod,
+                    NamespaceShards.getInstance().ownedNamespaces());
+      } else {
+        informer =
+            factory.sharedIndexInformerFor(
+                InformerSnapshots.wrap(
+                    V1alpha1Pipeline.class,
+                    callGeneratorParams ->
+                        api.listPipelineForAllNamespacesCall(
+                            null,
+                            null,
+                            null,
+                            labelSelector,
+                            null,
+                            null,
+                            callGeneratorParams.resourceVersion,
+                            callGeneratorParams.timeoutSeconds,
+                            callGeneratorParams.watch,
+                            null)),
+                V1alpha1Pipeline.class,
+                V1alpha1PipelineList.class,
+                resyncPeriod);
+      }
     }
 
     PipelineClient client = new PipelineClient(informer);
     Clients.register(V1alpha1Pipeline.class, client);
 
-    queue = new DefaultRateLimitingQueue<>(Executors.newSingleThreadExecutor());
+    queue = new InstrumentedRateLimitingQueue<>("pipeline", Executors.newSingleThreadExecutor());
 
     Controller controller =
         ControllerBuilder.defaultBuilder(factory)
@@ -104,6 +134,10 @@ public class PipelineController
                         .withOnAddFilter(
                             pipeline -> {
                               Metrics.incomingRequestCounter.labels("pipeline", "add").inc();
+                              if (!NamespaceShards.getInstance()
+                                  .isOwned(pipeline.getMetadata().getNamespace())) {
+                                return false;
+                              }
                               logger.debug(
                                   "[{}] received event: Add, Pipeline '{}/{}'",
                                   CONTROLLER_NAME,
@@ -122,7 +156,7 @@ public class PipelineController
                                   CONTROLLER_NAME,
                                   namespace,
                                   name);
-                              return true;
+                              return NamespaceShards.getInstance().isOwned(namespace);
                             })
                         .withOnDeleteFilter(
                             (pipeline, aBoolean) -> {
@@ -132,10 +166,13 @@ public class PipelineController
                                   CONTROLLER_NAME,
                                   pipeline.getMetadata().getNamespace(),
                                   pipeline.getMetadata().getName());
-                              return true;
+                              return NamespaceShards.getInstance()
+                                  .isOwned(pipeline.getMetadata().getNamespace());
                             })
                         .build())
-            .withReconciler(new PipelineReconciler(new Lister<>(informer.getIndexer())))
+            .withReconciler(
+                new InstrumentedReconciler(
+                    "pipeline", new PipelineReconciler(new Lister<>(informer.getIndexer()))))
             .withName(CONTROLLER_NAME)
             .withWorkerCount(4)
             .build();
@@ -143,25 +180,14 @@ public class PipelineController
     managerBuilder.addController(controller);
   }
 
-  @Override
-  public LocalDateTime lastEventComingTime() {
-    return lastEventComingTime;
-  }
-
   @Override
   public String resourceName() {
     return "Pipeline";
   }
 
   @Override
-  public boolean hasResourceExists() throws ApiException {
-    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-    V1alpha1PipelineList pipelineList =
-        api.listPipelineForAllNamespaces(null, null, null, null, 1, null, "0", null, null);
-
-    return pipelineList != null
-        && pipelineList.getItems() != null
-        && pipelineList.getItems().size() != 0;
+  public String watchedResource() {
+    return "pipelines";
   }
 
   class PipelineReconciler implements Reconciler {
@@ -176,8 +202,6 @@ public class PipelineController
 
     @Override
     public Result reconcile(Request request) {
-      lastEventComingTime = LocalDateTime.now();
-
       Metrics.completedRequestCounter.labels("pipeline").inc();
       Metrics.remainedRequestsGauge.labels("pipeline").set(queue.length());
 
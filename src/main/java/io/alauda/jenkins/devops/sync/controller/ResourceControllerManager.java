@@ -16,7 +16,14 @@ import io.alauda.jenkins.devops.support.KubernetesClusterConfigurationListener;
 import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
+import io.alauda.jenkins.devops.sync.client.NamespacedInformer;
+import io.alauda.jenkins.devops.sync.client.ResourceClient;
+import io.alauda.jenkins.devops.sync.monitor.ApiCallMetricsInterceptor;
 import io.alauda.jenkins.devops.sync.monitor.Metrics;
+import io.alauda.jenkins.devops.sync.monitor.WatchProgressInterceptor;
+import io.alauda.jenkins.devops.sync.monitor.WatchTrafficRecorder;
+import io.alauda.jenkins.devops.sync.monitor.WatchTrafficReplayer;
+import io.kubernetes.client.extended.controller.Controller;
 import io.kubernetes.client.extended.controller.ControllerManager;
 import io.kubernetes.client.extended.controller.builder.ControllerBuilder;
 import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder;
@@ -25,7 +32,9 @@ import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.Configuration;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -34,6 +43,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import jenkins.model.identity.IdentityRootAction;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -50,6 +60,11 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
   private String managerStatus;
   private String baseDomain = ALAUDA_DEVOPS_USED_BASEDOMAIN;
   private AtomicBoolean started = new AtomicBoolean(false);
+  private PipelineConfigBootstrapper bootstrapper = new PipelineConfigBootstrapper();
+  // controllers started with the main ControllerManager, by the resource controller adding them
+  private Map<ResourceController, ControllerManager> startedControllers = new HashMap<>();
+  // controllers restarted individually, they are running in their own ControllerManager
+  private Map<ResourceController, RestartedController> restartedControllers = new HashMap<>();
 
   @Override
   public void onConfigChange(KubernetesCluster cluster, ApiClient client) {
@@ -63,56 +78,95 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
     controllerManagerThread = Executors.newSingleThreadExecutor();
     controllerManagerThread.submit(
         () -> {
+          // the replayer must be installed before any request sent to apiserver
+          WatchTrafficReplayer.install(Configuration.getDefaultApiClient());
           waitForJenkinsSetup();
 
           logger.info("[ResourceControllerManager] Starting initialize controller manager");
-          SharedInformerFactory informerFactory = new SharedInformerFactory();
+          NamespaceShards.getInstance().configure();
+          ApiCallMetricsInterceptor.install(Configuration.getDefaultApiClient());
+          WatchProgressInterceptor.install(Configuration.getDefaultApiClient());
+          WatchTrafficRecorder.install(Configuration.getDefaultApiClient());
 
-          ExtensionList<ResourceController> resourceControllers = ResourceController.all();
-          logger.info(
-              "[ResourceControllerManager] Found {} resource controllers",
-              resourceControllers.size());
+          runControllers(ResourceController.all(), new NamespacedInformerFactory());
+        });
+  }
+
+  /**
+   * Start the controllers without waiting for Jenkins setup, the controllers started before will
+   * be stopped.
+   *
+   * @param resourceControllers controllers to start
+   * @param informerFactory factory of the informers used by the controllers
+   */
+  synchronized void start(
+      Collection<? extends ResourceController> resourceControllers,
+      SharedInformerFactory informerFactory) {
+    shutdown(null);
 
+    controllerManagerThread = Executors.newSingleThreadExecutor();
+    controllerManagerThread.submit(() -> runControllers(resourceControllers, informerFactory));
+  }
+
+  private void runControllers(
+      Collection<? extends ResourceController> resourceControllers,
+      SharedInformerFactory informerFactory) {
+    logger.info(
+        "[ResourceControllerManager] Found {} resource controllers", resourceControllers.size());
+
+    // controllers of each resource controller are managed by their own ControllerManager, so that
+    // they could be stopped when the resource controller restarts
+    Map<ResourceController, ControllerManager> managers = new HashMap<>();
+    resourceControllers.forEach(
+        resourceSyncController -> {
           ControllerManagerBuilder controllerManagerBuilder =
-              ControllerBuilder.controllerManagerBuilder(informerFactory);
-
-          resourceControllers.forEach(
-              resourceSyncController -> {
-                resourceSyncController.add(controllerManagerBuilder, informerFactory);
-              });
-
-          synchronized (ResourceControllerManager.this) {
-            try {
-              if (controllerManager != null) {
-                logger.info(
-                    "[ResourceControllerManager] The previous ControllerManager doesn't shutdown, try to stop it now..");
-                controllerManager.shutdown();
-              }
-            } catch (Throwable e) {
-              logger.info(
-                  "[ResourceControllerManager] Failed to stop the previous ControllerManager, there might are potential problem");
-            }
-            controllerManager = controllerManagerBuilder.build();
-          }
+              ControllerBuilder.controllerManagerBuilder(new SharedInformerFactory());
+          resourceSyncController.add(controllerManagerBuilder, informerFactory);
+          managers.put(resourceSyncController, controllerManagerBuilder.build());
+        });
 
+    synchronized (this) {
+      try {
+        if (controllerManager != null) {
           logger.info(
-              "[ResourceControllerManager] ControllerManager initialized, waiting for informers sync");
-          informerFactory.startAllRegisteredInformers();
+              "[ResourceControllerManager] The previous ControllerManager doesn't shutdown, try to stop it now..");
+          controllerManager.shutdown();
+        }
+      } catch (Throwable e) {
+        logger.info(
+            "[ResourceControllerManager] Failed to stop the previous ControllerManager, there might are potential problem");
+      }
+      controllerManager =
+          new ControllerManager(informerFactory, managers.values().toArray(new Controller[0]));
+      startedControllers = managers;
+    }
 
-          if (!waitForInformersSync()) {
-            logger.warn(
-                "[ResourceControllerManager] Timeout to wait for informers sync, will restart controllerManager");
-            this.restart();
-            return;
-          }
+    logger.info(
+        "[ResourceControllerManager] ControllerManager initialized, waiting for informers sync");
+    long syncStartTime = System.currentTimeMillis();
+    informerFactory.startAllRegisteredInformers();
 
-          managerStatus = "";
-          started.set(true);
-          Metrics.syncManagerUpGauge.set(1);
+    if (!waitForInformersSync()) {
+      logger.warn(
+          "[ResourceControllerManager] Timeout to wait for informers sync, will restart controllerManager");
+      this.restart();
+      return;
+    }
+    logger.info(
+        "[ResourceControllerManager] Informers synced in {} ms",
+        System.currentTimeMillis() - syncStartTime);
 
-          logger.info("[ResourceControllerManager] Start controllerManager");
-          controllerManager.run();
-        });
+    if (AlaudaSyncGlobalConfiguration.get().isBulkBootstrapEnabled()) {
+      logger.info("[ResourceControllerManager] Start to bootstrap Jenkins jobs");
+      bootstrapper.bootstrap();
+    }
+
+    managerStatus = "";
+    started.set(true);
+    Metrics.syncManagerUpGauge.set(1);
+
+    logger.info("[ResourceControllerManager] Start controllerManager");
+    controllerManager.run();
   }
 
   private void waitForJenkinsSetup() {
@@ -141,7 +195,17 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
         // if informers didn't sync after 30 minutes, we should stop to recheck it as there must
         // some network or configuration problems.
         Duration.ofMinutes(30),
-        Clients::allRegisteredResourcesSynced);
+        () ->
+            Clients.getRegisteredClients()
+                .values()
+                .stream()
+                .map(ResourceClient::informer)
+                // this master might own no namespace, there is nothing to wait for
+                .allMatch(
+                    informer ->
+                        informer.hasSynced()
+                            || (informer instanceof NamespacedInformer
+                                && ((NamespacedInformer) informer).getNamespaces().isEmpty())));
   }
 
   private boolean checkAndSetupJenkins() {
@@ -217,6 +281,10 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
     started.set(false);
     Metrics.syncManagerUpGauge.set(0);
 
+    restartedControllers.values().forEach(RestartedController::shutdown);
+    restartedControllers.clear();
+    startedControllers.clear();
+
     if (controllerManager != null) {
       controllerManager.shutdown();
       controllerManager = null;
@@ -245,6 +313,10 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
     return managerStatus;
   }
 
+  public PipelineConfigBootstrapper getBootstrapper() {
+    return bootstrapper;
+  }
+
   // TODO: should throw Exception or something can warn us when baseDomain is wrong
   public Supplier<String> getFormattedAnnotation(String annotation) {
     return new Supplier<String>() {
@@ -266,6 +338,104 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
     this.onConfigChange(cluster, Configuration.getDefaultApiClient());
   }
 
+  /**
+   * Restart the informer and controller of a resource without restarting other controllers. The
+   * informer of the resource will be replaced by a new one, which will relist and rewatch the
+   * resource.
+   *
+   * @param resourceController controller to restart
+   * @return true if the controller restarted
+   */
+  public synchronized boolean restartController(ResourceController resourceController) {
+    if (!isStarted()) {
+      return false;
+    }
+
+    logger.info(
+        "[ResourceControllerManager] Restarting controller {}",
+        resourceController.getClass().getSimpleName());
+    RestartedController previous = restartedControllers.remove(resourceController);
+    if (previous != null) {
+      previous.shutdown();
+    }
+    // on the first restart, stop the workers of the controller in the main ControllerManager, or
+    // they keep reconciling the requeued requests against the stopped informer
+    ControllerManager original = startedControllers.remove(resourceController);
+    if (original != null) {
+      shutdownQuietly(original);
+    }
+
+    Map<Class, ResourceClient> clientsBefore = new HashMap<>(Clients.getRegisteredClients());
+
+    SharedInformerFactory informerFactory = new NamespacedInformerFactory();
+    ControllerManagerBuilder controllerManagerBuilder =
+        ControllerBuilder.controllerManagerBuilder(informerFactory);
+    resourceController.add(controllerManagerBuilder, informerFactory);
+
+    // stop the informers replaced by the restarted controller, their controllers in the previous
+    // ControllerManager will not receive events anymore
+    clientsBefore.forEach(
+        (type, client) -> {
+          if (Clients.get(type) != client) {
+            client.informer().stop();
+          }
+        });
+
+    ControllerManager manager = controllerManagerBuilder.build();
+    ExecutorService thread = Executors.newSingleThreadExecutor();
+    informerFactory.startAllRegisteredInformers();
+    thread.submit(manager::run);
+
+    restartedControllers.put(resourceController, new RestartedController(manager, thread));
+    return true;
+  }
+
+  /**
+   * Restart the controllers of namespaced resources after the namespaces owned by this master
+   * changed, their informers will be rebuilt to list and watch the new owned namespaces only.
+   */
+  public synchronized void rebalance() {
+    if (!isStarted()) {
+      return;
+    }
+
+    logger.info("[ResourceControllerManager] Owned namespaces changed, restarting controllers");
+    restartController(ExtensionList.lookup(PipelineConfigController.class).get(0));
+    restartController(ExtensionList.lookup(PipelineController.class).get(0));
+  }
+
+  /**
+   * Start to watch the new namespace by the namespaced informers if it is owned by this master.
+   *
+   * @param namespace name of the added namespace
+   */
+  public void namespaceAdded(String namespace) {
+    if (!NamespaceShards.getInstance().isOwned(namespace)) {
+      return;
+    }
+
+    namespacedInformers().forEach(informer -> informer.watchNamespace(namespace));
+  }
+
+  /**
+   * Stop watching the deleted namespace by the namespaced informers.
+   *
+   * @param namespace name of the deleted namespace
+   */
+  public void namespaceDeleted(String namespace) {
+    namespacedInformers().forEach(informer -> informer.forgetNamespace(namespace));
+  }
+
+  private List<NamespacedInformer> namespacedInformers() {
+    return Clients.getRegisteredClients()
+        .values()
+        .stream()
+        .map(ResourceClient::informer)
+        .filter(informer -> informer instanceof NamespacedInformer)
+        .map(informer -> (NamespacedInformer) informer)
+        .collect(Collectors.toList());
+  }
+
   public static ResourceControllerManager getControllerManager() {
     return ExtensionList.lookup(ResourceControllerManager.class).get(0);
   }
@@ -308,4 +478,28 @@ public class ResourceControllerManager implements KubernetesClusterConfiguration
     future.cancel(true);
     return result.get();
   }
+
+  private static void shutdownQuietly(ControllerManager manager) {
+    try {
+      manager.shutdown();
+    } catch (Throwable e) {
+      logger.info(
+          "[ResourceControllerManager] Failed to stop the controller, reason {}", e.getMessage());
+    }
+  }
+
+  private static class RestartedController {
+    private final ControllerManager controllerManager;
+    private final ExecutorService thread;
+
+    RestartedController(ControllerManager controllerManager, ExecutorService thread) {
+      this.controllerManager = controllerManager;
+      this.thread = thread;
+    }
+
+    void shutdown() {
+      shutdownQuietly(controllerManager);
+      thread.shutdown();
+    }
+  }
 }
@@ -5,6 +5,7 @@ package io.alauda.jenkins.devops.sync.listener;
 // import static io.alauda.jenkins.devops.sync.constants.Annotations.MULTI_BRANCH_STALE_BRANCH;
 // import static io.alauda.jenkins.devops.sync.constants.Annotations.MULTI_BRANCH_STALE_PR;
 import io.alauda.jenkins.devops.sync.constants.Annotations;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import hudson.init.InitMilestone;
 import hudson.init.Initializer;
@@ -15,14 +16,18 @@ import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
 import io.alauda.devops.java.client.models.V1alpha1PipelineParameter;
 import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
 import io.alauda.jenkins.devops.sync.PipelineConfigToJobMapper;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
+import io.alauda.jenkins.devops.sync.client.PipelineConfigClient;
 import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
+import io.alauda.jenkins.devops.sync.multiBranch.BranchStatesAnnotation;
 import io.alauda.jenkins.devops.sync.multiBranch.PullRequest;
 import io.alauda.jenkins.devops.sync.util.NamespaceName;
 import io.alauda.jenkins.devops.sync.util.PipelineGenerator;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.ratelimiter.BucketRateLimiter;
 import io.kubernetes.client.openapi.ApiException;
@@ -30,18 +35,21 @@ import io.kubernetes.client.openapi.JSON;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import jenkins.scm.api.metadata.ObjectMetadataAction;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang3.tuple.Pair;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.workflow.multibranch.BranchJobProperty;
 import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
 import org.kohsuke.accmod.Restricted;
@@ -56,6 +64,10 @@ public class MultibranchProjectSyncExecutor implements Runnable {
       LoggerFactory.getLogger(MultibranchProjectSyncExecutor.class);
 
   private static final int DEFAULT_WORKER_COUNT = 2;
+  // a branch indexing will fire lots of events in a short time, we wait until no more events come
+  // in this window, but no longer than the max delay
+  private static final long DEBOUNCE_WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(5);
+  private static final long DEBOUNCE_MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30);
   private static final MultibranchProjectSyncExecutor instance =
       new MultibranchProjectSyncExecutor();
 
@@ -79,6 +91,11 @@ public class MultibranchProjectSyncExecutor implements Runnable {
   private ScheduledExecutorService executor;
   private RateLimitingQueue<NamespaceName> projectQueue;
   private JenkinsClient jenkinsClient;
+  private final Map<NamespaceName, ProjectSnapshot> snapshots = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService debounceExecutor;
+  private final Map<NamespaceName, Long> firstSubmitTimes = new HashMap<>();
+  private final Map<NamespaceName, ScheduledFuture<?>> pendingSubmits = new HashMap<>();
 
   private MultibranchProjectSyncExecutor() {
     executor =
@@ -86,13 +103,47 @@ public class MultibranchProjectSyncExecutor implements Runnable {
             DEFAULT_WORKER_COUNT, namedProjectSyncWorkerThreadFactory());
 
     projectQueue =
-        new DefaultRateLimitingQueue<>(
+        new InstrumentedRateLimitingQueue<>(
+            "multibranch_sync",
             Executors.newSingleThreadExecutor(),
             new BucketRateLimiter<>(100, 2, Duration.ofSeconds(1)));
     jenkinsClient = JenkinsClient.getInstance();
+    debounceExecutor = Executors.newSingleThreadScheduledExecutor();
   }
 
+  /**
+   * Submit the project to sync its branches to PipelineConfig. Submits of the same project will be
+   * coalesced into one sync until no more submits come in the debounce window.
+   *
+   * @param multiBranchProject namespace and name of the PipelineConfig
+   */
   public void submit(NamespaceName multiBranchProject) {
+    synchronized (pendingSubmits) {
+      long now = System.currentTimeMillis();
+      long firstSubmitTime = firstSubmitTimes.computeIfAbsent(multiBranchProject, key -> now);
+
+      ScheduledFuture<?> pending = pendingSubmits.remove(multiBranchProject);
+      if (pending != null) {
+        pending.cancel(false);
+      }
+
+      long delay =
+          Math.max(
+              0,
+              Math.min(
+                  DEBOUNCE_WINDOW_MILLIS, firstSubmitTime + DEBOUNCE_MAX_DELAY_MILLIS - now));
+      pendingSubmits.put(
+          multiBranchProject,
+          debounceExecutor.schedule(
+              () -> flush(multiBranchProject), delay, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  private void flush(NamespaceName multiBranchProject) {
+    synchronized (pendingSubmits) {
+      pendingSubmits.remove(multiBranchProject);
+      firstSubmitTimes.remove(multiBranchProject);
+    }
     projectQueue.addRateLimited(multiBranchProject);
   }
 
@@ -158,6 +209,36 @@ public class MultibranchProjectSyncExecutor implements Runnable {
       return;
     }
 
+    // read PipelineConfig from the informer first, the cached one might be stale, the update will
+    // be rejected by apiserver in that case, then we will read it from apiserver and retry
+    V1alpha1PipelineConfig cachedPC =
+        Clients.get(V1alpha1PipelineConfig.class).lister().namespace(namespace).get(name);
+    if (cachedPC != null) {
+      try {
+        if (updateBranchAndPRAnnotations(namespaceName, project, cachedPC, true)) {
+          Metrics.multiBranchPipelineConfigCacheCounter.labels("hit").inc();
+        }
+        return;
+      } catch (ApiException e) {
+        if (e.getCode() != 409 && e.getCode() != 422) {
+          logger.warn(
+              "Failed to sync MultibranchProject '{}/{}' to PipelineConfig, reason {}, body {}",
+              namespace,
+              name,
+              e.getMessage(),
+              e.getResponseBody());
+          return;
+        }
+      }
+      logger.debug(
+          "PipelineConfig '{}/{}' in cache is stale, will retry with the latest one",
+          namespace,
+          name);
+      Metrics.multiBranchPipelineConfigCacheCounter.labels("stale").inc();
+    } else {
+      Metrics.multiBranchPipelineConfigCacheCounter.labels("miss").inc();
+    }
+
     V1alpha1PipelineConfig oldPC;
     try {
       oldPC = readPipelineConfig(namespace, name);
@@ -176,117 +257,183 @@ public class MultibranchProjectSyncExecutor implements Runnable {
       return;
     }
 
-    V1alpha1PipelineConfig newPC = DeepCopyUtils.deepCopy(oldPC);
-    V1ObjectMeta meta = newPC.getMetadata();
-
-    // clean up all annotations which start with alauda.io/jenkins
-    clearBranchAndPRAnnotations(meta.getAnnotations());
+    try {
+      updateBranchAndPRAnnotations(namespaceName, project, oldPC, false);
+    } catch (ApiException e) {
+      // never thrown without checking resourceVersion
+      logger.warn(
+          "Failed to sync MultibranchProject '{}/{}' to PipelineConfig, reason {}",
+          namespace,
+          name,
+          e.getMessage());
+    }
+  }
 
-    BranchItem branchItem = new BranchItem();
+  /**
+   * @param checkResourceVersion only update the PipelineConfig if its resourceVersion is still
+   *     the one of oldPC
+   * @return true if PipelineConfig updated or nothing changed
+   * @throws ApiException if apiserver rejected the update when checking resourceVersion
+   */
+  private boolean updateBranchAndPRAnnotations(
+      NamespaceName namespaceName,
+      WorkflowMultiBranchProject project,
+      V1alpha1PipelineConfig oldPC,
+      boolean checkResourceVersion)
+      throws ApiException {
     Collection<? extends Job> allJobs = project.getAllJobs();
+    logger.debug("project {}, job number {}", project.getFullDisplayName(), allJobs.size());
+
+    // only recompute the branches that changed since last sync, others will reuse the last state
+    ProjectSnapshot lastSnapshot = snapshots.get(namespaceName);
+    String uid = oldPC.getMetadata().getUid();
+    Map<String, BranchState> lastStates =
+        lastSnapshot != null && lastSnapshot.uid.equals(uid)
+            ? lastSnapshot.branchStates
+            : Collections.emptyMap();
+
+    Map<String, BranchState> branchStates = new HashMap<>();
+    boolean changed = lastSnapshot == null || lastStates.isEmpty();
+    for (Job job : allJobs) {
+      if (!(job instanceof WorkflowJob)) {
+        continue;
+      }
 
-    logger.info("project {}", project.getFullDisplayName());
-
-    logger.info("Job number {}", allJobs.size());
+      WorkflowJob wfJob = (WorkflowJob) job;
+      BranchState lastState = lastStates.get(wfJob.getName());
+      if (lastState != null && lastState.isUpToDate(wfJob)) {
+        branchStates.put(wfJob.getName(), lastState);
+        continue;
+      }
 
-    // init a pair list to sort all jobs
-    List<Pair> pairs = new ArrayList<>();
+      BranchState state = BranchState.of(wfJob);
+      if (state != null) {
+        branchStates.put(wfJob.getName(), state);
+      }
+      changed = true;
+    }
 
-    for (Job job : allJobs) {
-      Pair pair = Pair.of(job, job.getLastBuild().getStartTimeInMillis());
-      pairs.add(pair);
+    if (!changed && branchStates.keySet().equals(lastStates.keySet())) {
+      logger.debug(
+          "No branch changed in MultibranchProject '{}/{}', skip updating PipelineConfig",
+          namespaceName.getNamespace(),
+          namespaceName.getName());
+      return true;
     }
 
-    List<Pair> sortedPairs =
-        pairs
+    V1alpha1PipelineConfig newPC = DeepCopyUtils.deepCopy(oldPC);
+    V1ObjectMeta meta = newPC.getMetadata();
+
+    // clean up all annotations which start with alauda.io/jenkins
+    clearBranchAndPRAnnotations(meta.getAnnotations());
+
+    // sort branches by the start time of last build, branches without build will be put at last
+    List<BranchState> sortedStates =
+        branchStates
+            .values()
             .stream()
-            .sorted(
-                (left, right) -> {
-                  if (left.getValue() == null) {
-                    return 1;
-                  }
-                  if (right.getValue() == null) {
-                    return -1;
-                  }
-
-                  Long leftBuildMillis = (Long) left.getValue();
-                  Long rightBuildMillis = (Long) right.getValue();
-                  return Long.compare(rightBuildMillis, leftBuildMillis);
-                })
+            .sorted(BranchState.LAST_BUILD_FIRST)
             .collect(Collectors.toList());
 
-    ArrayList<Job> sortedJobs = new ArrayList<Job>();
-
-    for (Pair pair : sortedPairs) {
-      sortedJobs.add((Job) pair.getKey());
+    if (AlaudaSyncGlobalConfiguration.get().isCompactBranchAnnotations()) {
+      putCompactAnnotations(meta, sortedStates);
+    } else {
+      putAnnotations(meta, sortedStates);
     }
 
-    for (Job job : sortedJobs) {
-      if (!(job instanceof WorkflowJob)) {
-        continue;
-      }
+    if (logger.isDebugEnabled()) {
+      logger.debug(
+          "Annotations size of PipelineConfig '{}/{}', before {} bytes, after {} bytes",
+          namespaceName.getNamespace(),
+          namespaceName.getName(),
+          annotationsSize(oldPC.getMetadata().getAnnotations()),
+          annotationsSize(meta.getAnnotations()));
+    }
 
-      WorkflowJob wfJob = (WorkflowJob) job;
-      BranchJobProperty pro = wfJob.getProperty(BranchJobProperty.class);
-      if (pro == null) {
-        continue;
-      }
+    logger.debug("Starting to update PipelineConfig, old {}, \n new {}", oldPC, newPC);
+    boolean updated;
+    if (checkResourceVersion) {
+      updated =
+          ((PipelineConfigClient) Clients.get(V1alpha1PipelineConfig.class))
+              .updateIfNotModified(oldPC, newPC);
+    } else {
+      updated = Clients.get(V1alpha1PipelineConfig.class).update(oldPC, newPC);
+    }
+    if (!updated) {
+      return false;
+    }
 
-      String scmURL = "";
-      ObjectMetadataAction metadataAction = wfJob.getAction(ObjectMetadataAction.class);
-      if (metadataAction != null) {
-        scmURL = metadataAction.getObjectUrl();
-      }
+    snapshots.put(namespaceName, new ProjectSnapshot(uid, branchStates));
+    return true;
+  }
 
-      String branchName = pro.getBranch().getName();
-      PullRequest pr = PipelineGenerator.getPR(wfJob);
+  private void putAnnotations(V1ObjectMeta meta, List<BranchState> sortedStates) {
+    String annotationPrefix =
+        ResourceControllerManager.getControllerManager().getFormattedAnnotation("jenkins.").get();
+    BranchItem branchItem = new BranchItem();
+    for (BranchState state : sortedStates) {
+      String branchKey = annotationPrefix + annotationKeySpec(state.branchName);
+      PullRequest pr = state.pr;
       if (pr != null) {
         // we consider it as a pr
-        pr.setUrl(scmURL);
-        putIfNotEmpty(
-            meta,
-            ResourceControllerManager.getControllerManager()
-                    .getFormattedAnnotation("jenkins.")
-                    .get()
-                + annotationKeySpec(branchName),
-            toJSON(pr));
+        putIfNotEmpty(meta, branchKey, state.prJSON);
         putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_ID.get().toString(), pr.getId());
-        putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_SOURCE.get().toString(), pr.getSourceBranch());
-        putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_TARGET.get().toString(), pr.getTargetBranch());
+        putIfNotEmpty(
+            meta, Annotations.ALAUDA_PIPELINE_PR_SOURCE.get().toString(), pr.getSourceBranch());
+        putIfNotEmpty(
+            meta, Annotations.ALAUDA_PIPELINE_PR_TARGET.get().toString(), pr.getTargetBranch());
         putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_TITLE.get().toString(), pr.getTitle());
       } else {
-        putIfNotEmpty(
-            meta,
-            ResourceControllerManager.getControllerManager()
-                    .getFormattedAnnotation("jenkins.")
-                    .get()
-                + annotationKeySpec(branchName)
-                + ".url",
-            scmURL);
+        putIfNotEmpty(meta, branchKey + ".url", state.scmURL);
       }
 
-      branchItem.add(wfJob, pr != null, branchName);
-
-      List<V1alpha1PipelineParameter> pipelineParameters =
-          PipelineConfigToJobMapper.getPipelineParameter(wfJob);
-      putIfNotEmpty(
-          meta,
-          ResourceControllerManager.getControllerManager().getFormattedAnnotation("jenkins.").get()
-              + annotationKeySpec(branchName)
-              + ".params",
-          toJSON(pipelineParameters));
+      branchItem.add(state.disabled, pr != null, state.branchName);
+      putIfNotEmpty(meta, branchKey + ".params", state.paramsJSON);
     }
 
-    logger.info("branch items {}", new JSON().serialize(branchItem));
+    logger.debug("branch items {}", new JSON().serialize(branchItem));
 
     putIfNotEmpty(meta, Annotations.MULTI_BRANCH_PR.get().toString(), branchItem.getPrList());
-    putIfNotEmpty(meta, Annotations.MULTI_BRANCH_STALE_PR.get().toString(), branchItem.getStalePRList());
-    putIfNotEmpty(meta, Annotations.MULTI_BRANCH_BRANCH.get().toString(), branchItem.getBranchList());
     putIfNotEmpty(
-        meta, Annotations.MULTI_BRANCH_STALE_BRANCH.get().toString(), branchItem.getStaleBranchList());
+        meta, Annotations.MULTI_BRANCH_STALE_PR.get().toString(), branchItem.getStalePRList());
+    putIfNotEmpty(
+        meta, Annotations.MULTI_BRANCH_BRANCH.get().toString(), branchItem.getBranchList());
+    putIfNotEmpty(
+        meta,
+        Annotations.MULTI_BRANCH_STALE_BRANCH.get().toString(),
+        branchItem.getStaleBranchList());
+  }
 
-    logger.debug("Starting to update PipelineConfig, old {}, \n new {}", oldPC, newPC);
-    Clients.get(V1alpha1PipelineConfig.class).update(oldPC, newPC);
+  /** Put all branches into one annotation, see {@link BranchStatesAnnotation} for the format. */
+  private void putCompactAnnotations(V1ObjectMeta meta, List<BranchState> sortedStates) {
+    BranchStatesAnnotation branchStates = new BranchStatesAnnotation();
+    for (BranchState state : sortedStates) {
+      PullRequest pr = state.pr;
+      if (pr != null) {
+        branchStates.addPR(state.branchName, state.disabled, state.prJSON, state.paramsJSON);
+        putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_ID.get().toString(), pr.getId());
+        putIfNotEmpty(
+            meta, Annotations.ALAUDA_PIPELINE_PR_SOURCE.get().toString(), pr.getSourceBranch());
+        putIfNotEmpty(
+            meta, Annotations.ALAUDA_PIPELINE_PR_TARGET.get().toString(), pr.getTargetBranch());
+        putIfNotEmpty(meta, Annotations.ALAUDA_PIPELINE_PR_TITLE.get().toString(), pr.getTitle());
+      } else {
+        branchStates.addBranch(state.branchName, state.disabled, state.scmURL, state.paramsJSON);
+      }
+    }
+    meta.putAnnotationsItem(BranchStatesAnnotation.annotationKey(), branchStates.toJSON());
+  }
+
+  private static int annotationsSize(Map<String, String> annotations) {
+    if (annotations == null) {
+      return 0;
+    }
+
+    return annotations
+        .entrySet()
+        .stream()
+        .mapToInt(entry -> entry.getKey().length() + StringUtils.length(entry.getValue()))
+        .sum();
   }
 
   private V1alpha1PipelineConfig readPipelineConfig(String namespace, String name)
@@ -353,12 +500,12 @@ public class MultibranchProjectSyncExecutor implements Runnable {
     private List<String> prList = new ArrayList<>();
     private List<String> stalePRList = new ArrayList<>();
 
-    public void add(WorkflowJob wfJob, boolean isPR, String branchName) {
-      if (wfJob.isDisabled() && isPR) {
+    public void add(boolean disabled, boolean isPR, String branchName) {
+      if (disabled && isPR) {
         stalePRList.add(branchName);
-      } else if (wfJob.isDisabled() && !isPR) {
+      } else if (disabled && !isPR) {
         staleBranchList.add(branchName);
-      } else if (!wfJob.isDisabled() && !isPR) {
+      } else if (!disabled && !isPR) {
         branchList.add(branchName);
       } else {
         prList.add(branchName);
@@ -382,6 +529,91 @@ public class MultibranchProjectSyncExecutor implements Runnable {
     }
   }
 
+  /** Branch states of a multi-branch project that has been synced to PipelineConfig. */
+  static class ProjectSnapshot {
+    private final String uid;
+    private final Map<String, BranchState> branchStates;
+
+    ProjectSnapshot(String uid, Map<String, BranchState> branchStates) {
+      this.uid = uid;
+      this.branchStates = branchStates;
+    }
+  }
+
+  /**
+   * Computed annotation values of a branch job. The state is up to date as long as the job has no
+   * new build, its disabled flag is the same and its configuration hasn't been saved again.
+   */
+  static class BranchState {
+    // branches with recent builds first, branches without build at last
+    static final Comparator<BranchState> LAST_BUILD_FIRST =
+        Comparator.comparing(
+            (BranchState state) -> state.lastBuildStartTime,
+            Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private String branchName;
+    private boolean disabled;
+    private String scmURL;
+    private PullRequest pr;
+    private String prJSON;
+    private String paramsJSON;
+    private Long lastBuildStartTime;
+
+    private int nextBuildNumber;
+    private long configLastModified;
+
+    private BranchState() {}
+
+    @VisibleForTesting
+    BranchState(String branchName, Long lastBuildStartTime) {
+      this.branchName = branchName;
+      this.lastBuildStartTime = lastBuildStartTime;
+    }
+
+    @CheckForNull
+    static BranchState of(WorkflowJob wfJob) {
+      BranchJobProperty pro = wfJob.getProperty(BranchJobProperty.class);
+      if (pro == null) {
+        return null;
+      }
+
+      BranchState state = new BranchState();
+      state.branchName = pro.getBranch().getName();
+      state.disabled = wfJob.isDisabled();
+      state.nextBuildNumber = wfJob.getNextBuildNumber();
+      state.configLastModified = wfJob.getConfigFile().getFile().lastModified();
+
+      state.scmURL = "";
+      ObjectMetadataAction metadataAction = wfJob.getAction(ObjectMetadataAction.class);
+      if (metadataAction != null) {
+        state.scmURL = metadataAction.getObjectUrl();
+      }
+
+      state.pr = PipelineGenerator.getPR(wfJob);
+      if (state.pr != null) {
+        state.pr.setUrl(state.scmURL);
+        state.prJSON = toJSON(state.pr);
+      }
+
+      List<V1alpha1PipelineParameter> pipelineParameters =
+          PipelineConfigToJobMapper.getPipelineParameter(wfJob);
+      state.paramsJSON = toJSON(pipelineParameters);
+
+      // the last build will only be loaded when the branch has a new build
+      WorkflowRun lastBuild = wfJob.getLastBuild();
+      if (lastBuild != null) {
+        state.lastBuildStartTime = lastBuild.getStartTimeInMillis();
+      }
+      return state;
+    }
+
+    boolean isUpToDate(WorkflowJob wfJob) {
+      return nextBuildNumber == wfJob.getNextBuildNumber()
+          && disabled == wfJob.isDisabled()
+          && configLastModified == wfJob.getConfigFile().getFile().lastModified();
+    }
+  }
+
   private static ThreadFactory namedProjectSyncWorkerThreadFactory() {
     return new ThreadFactoryBuilder()
         .setNameFormat("MultibranchProjectSyncExecutor" + "-%d")
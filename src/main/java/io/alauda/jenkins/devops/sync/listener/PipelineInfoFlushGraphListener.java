@@ -0,0 +1,42 @@
+package io.alauda.jenkins.devops.sync.listener;
+
+import hudson.Extension;
+import hudson.model.Queue;
+import io.alauda.jenkins.devops.sync.util.FlowNodeUtils;
+import io.alauda.jenkins.devops.sync.var.PipelineContext;
+import java.io.IOException;
+import org.jenkinsci.plugins.workflow.flow.GraphListener;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the information items appended by alaudaPipeline at stage boundaries, so that a build
+ * only be saved once per stage no matter how many items recorded.
+ */
+@Extension
+public class PipelineInfoFlushGraphListener implements GraphListener {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(PipelineInfoFlushGraphListener.class);
+
+  @Override
+  public void onNewHead(FlowNode node) {
+    if (!FlowNodeUtils.isStageOrBranchStart(node)) {
+      return;
+    }
+
+    Queue.Executable executable;
+    try {
+      executable = node.getExecution().getOwner().getExecutable();
+    } catch (IOException e) {
+      logger.debug("Unable to get run of flow node {}, reason {}", node.getId(), e.getMessage());
+      return;
+    }
+
+    if (executable instanceof WorkflowRun) {
+      PipelineContext.flush((WorkflowRun) executable);
+    }
+  }
+}
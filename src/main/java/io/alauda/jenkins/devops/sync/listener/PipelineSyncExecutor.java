@@ -12,6 +12,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jenkinsci.plugins.badge.action.BadgeAction;
 import hudson.PluginManager;
@@ -38,6 +40,8 @@ import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
 import io.alauda.jenkins.devops.sync.constants.Constants;
 import io.alauda.jenkins.devops.sync.exception.PipelineException;
+import io.alauda.jenkins.devops.sync.monitor.InstrumentedRateLimitingQueue;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.scm.LastChangeData;
 import io.alauda.jenkins.devops.sync.util.ConditionUtils;
 import io.alauda.jenkins.devops.sync.util.JenkinsUtils;
@@ -49,9 +53,9 @@ import io.jenkins.blueocean.rest.model.BluePipelineNode.Edge;
 import io.jenkins.blueocean.rest.model.BlueRun;
 import io.jenkins.blueocean.rest.model.BlueRun.BlueRunResult;
 import io.kubernetes.client.extended.controller.reconciler.Result;
-import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
 import io.kubernetes.client.extended.workqueue.ratelimiter.BucketRateLimiter;
+import io.prometheus.client.Histogram;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.time.Duration;
@@ -82,6 +86,11 @@ public class PipelineSyncExecutor implements Runnable {
   private static final int DEFAULT_WORKER_COUNT = 1;
   private static final PipelineSyncExecutor instance = new PipelineSyncExecutor();
 
+  // static annotations won't change during a run, so we cache them per run in memory. The run is
+  // weakly referenced, annotations will be dropped with the run
+  private static final Cache<WorkflowRun, Map<String, String>> staticAnnotations =
+      CacheBuilder.newBuilder().weakKeys().build();
+
   public static PipelineSyncExecutor getInstance() {
     return instance;
   }
@@ -108,7 +117,8 @@ public class PipelineSyncExecutor implements Runnable {
         Executors.newScheduledThreadPool(DEFAULT_WORKER_COUNT, namedRunSyncWorkerThreadFactory());
 
     runQueue =
-        new DefaultRateLimitingQueue<>(
+        new InstrumentedRateLimitingQueue<>(
+            "pipeline_sync",
             Executors.newSingleThreadExecutor(),
             new BucketRateLimiter<>(100, 2, Duration.ofSeconds(1)));
   }
@@ -201,6 +211,9 @@ public class PipelineSyncExecutor implements Runnable {
         }
 
         if (result.isRequeue()) {
+          Metrics.requeueCounter
+              .labels("pipeline_sync", run.isBuilding() ? "in_progress" : "requested")
+              .inc();
           if (result.getRequeueAfter() != null) {
             runQueue.addAfter(run, result.getRequeueAfter());
           } else {
@@ -251,12 +264,21 @@ public class PipelineSyncExecutor implements Runnable {
       // ensure we won't update pipeline's spec
       pipelineCopy.setSpec(pipeline.getSpec());
 
-      addURLsToAnnotations(run, pipelineCopy);
+      Histogram.Timer annotationTimer =
+          Metrics.pipelineSyncPhaseHistogram.labels("annotation_build").startTimer();
+      addStaticAnnotations(run, pipelineCopy);
       addBadgesToAnnotations(run, pipelineCopy);
       addSCMToAnnotations(run, pipelineCopy);
       addTestResultAnnotations(run, pipelineCopy);
-      addCausesToAnnotation(run, pipelineCopy);
-      addRunDetailsToStatus(run, pipelineCopy);
+      annotationTimer.observeDuration();
+
+      Histogram.Timer graphTimer =
+          Metrics.pipelineSyncPhaseHistogram.labels("blueocean_graph").startTimer();
+      try {
+        addRunDetailsToStatus(run, pipelineCopy);
+      } finally {
+        graphTimer.observeDuration();
+      }
 
       mountActionsPipeline(run.getAllActions(), pipelineCopy);
 
@@ -422,9 +444,55 @@ public class PipelineSyncExecutor implements Runnable {
     return pipelineJson;
   }
 
-  private void addURLsToAnnotations(WorkflowRun run, V1alpha1Pipeline pipeline) {
-    String namespace = pipeline.getMetadata().getNamespace();
+  /**
+   * Get the annotations that won't change during the run, they are computed at the first time and
+   * cached in memory until the run is garbage collected. They are not persisted, so they will be
+   * computed again after Jenkins restarted.
+   *
+   * @param run the run
+   * @param namespace namespace of the Pipeline of the run
+   * @return the static annotations
+   */
+  public static Map<String, String> getOrComputeStaticAnnotations(
+      WorkflowRun run, String namespace) {
+    Map<String, String> annotations = staticAnnotations.getIfPresent(run);
+    if (annotations == null) {
+      annotations = Collections.unmodifiableMap(computeStaticAnnotations(run, namespace));
+      staticAnnotations.put(run, annotations);
+    }
+    return annotations;
+  }
+
+  /**
+   * Compute the annotations that won't change during the run: the URLs, the branch SCM of
+   * multi-branch jobs and the causes.
+   *
+   * @param run the run
+   * @param namespace namespace of the Pipeline of the run
+   * @return the static annotations
+   */
+  static Map<String, String> computeStaticAnnotations(WorkflowRun run, String namespace) {
+    Map<String, String> annotations = new HashMap<>();
+    addURLsToAnnotations(run, namespace, annotations);
+    WorkflowJob wfJob = run.getParent();
+    if (wfJob.getParent() instanceof WorkflowMultiBranchProject) {
+      PipelineGenerator.addBranchSCMToAnnotations(wfJob, annotations);
+    }
+    addCausesToAnnotations(run, annotations);
+    return annotations;
+  }
+
+  private void addStaticAnnotations(WorkflowRun run, V1alpha1Pipeline pipeline) {
+    Map<String, String> annotations = pipeline.getMetadata().getAnnotations();
+    if (annotations == null) {
+      annotations = new HashMap<>();
+      pipeline.getMetadata().setAnnotations(annotations);
+    }
+    annotations.putAll(getOrComputeStaticAnnotations(run, pipeline.getMetadata().getNamespace()));
+  }
 
+  private static void addURLsToAnnotations(
+      WorkflowRun run, String namespace, Map<String, String> annotations) {
     String buildUrl = run.getUrl();
     String logsUrl = joinPaths(buildUrl, "/consoleText");
     String logsConsoleUrl = joinPaths(buildUrl, "/console");
@@ -499,8 +567,6 @@ public class PipelineSyncExecutor implements Runnable {
       logger.debug("Failed to get BlueOceanUrl, reason {}", e.getMessage());
     }
 
-    Map<String, String> annotations = pipeline.getMetadata().getAnnotations();
-
     annotations.put(ALAUDA_DEVOPS_ANNOTATIONS_JENKINS_BUILD_URI.get().toString(), buildUrl);
     annotations.put(ALAUDA_DEVOPS_ANNOTATIONS_JENKINS_LOG_URL.get().toString(), logsUrl);
     annotations.put(
@@ -517,7 +583,7 @@ public class PipelineSyncExecutor implements Runnable {
   }
 
   @SuppressWarnings("unchecked")
-  private String getBlueOceanUrl(WorkflowRun run) throws Exception {
+  private static String getBlueOceanUrl(WorkflowRun run) throws Exception {
     String logsBlueOceanUrl; // there are utility functions in the blueocean-dashboard plugin
     // which construct
     // the entire blueocean URI; however, attempting to pull that in as
@@ -543,7 +609,7 @@ public class PipelineSyncExecutor implements Runnable {
     throw new PipelineException("Unable to find ClassLoader");
   }
 
-  private void addSCMToAnnotations(@Nonnull Run run, V1alpha1Pipeline pipeline) {
+  static void addSCMToAnnotations(@Nonnull Run run, V1alpha1Pipeline pipeline) {
     if (!(run instanceof WorkflowRun)) {
       return;
     }
@@ -554,11 +620,6 @@ public class PipelineSyncExecutor implements Runnable {
     }
 
     WorkflowRun wfRun = (WorkflowRun) run;
-    WorkflowJob wfJob = wfRun.getParent();
-    if (wfJob.getParent() instanceof WorkflowMultiBranchProject) {
-      PipelineGenerator.addBranchSCMToAnnotations(wfJob, annotations);
-    }
-
     LastChangeData lastChangeData = wfRun.getAction(LastChangeData.class);
     if (lastChangeData == null) {
       return;
@@ -572,7 +633,7 @@ public class PipelineSyncExecutor implements Runnable {
     annotations.put(ANNOTATION_PIPELINE_BRANCH.get().toString(), lastChangeData.getBranch());
   }
 
-  private void addTestResultAnnotations(WorkflowRun run, V1alpha1Pipeline pipeline) {
+  static void addTestResultAnnotations(WorkflowRun run, V1alpha1Pipeline pipeline) {
     Map<String, String> annotations = pipeline.getMetadata().getAnnotations();
     if (annotations == null) {
       return;
@@ -594,7 +655,7 @@ public class PipelineSyncExecutor implements Runnable {
         ANNOTATION_TEST_SKIPPED.get().toString(), String.valueOf(testResultAction.getSkipCount()));
   }
 
-  private void addCausesToAnnotation(WorkflowRun run, V1alpha1Pipeline pipelineCopy) {
+  private static void addCausesToAnnotations(WorkflowRun run, Map<String, String> annotations) {
     List<Action> actions = (List<Action>) run.getAllActions();
     List<Cause> allCauses = new ArrayList<>();
     for (Action action : actions) {
@@ -613,19 +674,13 @@ public class PipelineSyncExecutor implements Runnable {
           .filter(cause -> !(cause instanceof JenkinsPipelineCause))
           .forEach(item -> allCauseDetails.add(PipelineGenerator.causeConvert(item)));
 
-      Map<String, String> annotations = pipelineCopy.getMetadata().getAnnotations();
-      if (annotations == null) {
-        annotations = new HashMap<>();
-        pipelineCopy.getMetadata().setAnnotations(annotations);
-      }
-
       annotations.put(
           ALAUDA_DEVOPS_ANNOTATIONS_CAUSES_DETAILS.get().toString(),
           JSONArray.fromObject(allCauseDetails).toString());
     }
   }
 
-  private void addBadgesToAnnotations(@Nonnull Run run, V1alpha1Pipeline pipeline) {
+  static void addBadgesToAnnotations(@Nonnull Run run, V1alpha1Pipeline pipeline) {
     Map<String, String> annotations = pipeline.getMetadata().getAnnotations();
     if (annotations == null) {
       return;
@@ -696,6 +751,16 @@ public class PipelineSyncExecutor implements Runnable {
     if (actions == null || pipeline == null) {
       return;
     }
+    List<V1alpha1PipelineStatusInfoItem> items = toInformationItems(actions);
+    if (pipeline.getStatus().getInformation() == null) {
+      pipeline.getStatus().setInformation(new V1alpha1PipelineStatusInfo());
+    }
+    pipeline.getStatus().getInformation().setItems(items);
+  }
+
+  /** Convert the items of all PipelineActions to the information items of Pipeline status. */
+  public static List<V1alpha1PipelineStatusInfoItem> toInformationItems(
+      List<? extends Action> actions) {
     List<V1alpha1PipelineStatusInfoItem> items = new ArrayList<>();
     actions
         .stream()
@@ -703,7 +768,7 @@ public class PipelineSyncExecutor implements Runnable {
         .forEach(
             action -> {
               PipelineAction pa = (PipelineAction) action;
-              pa.getItems()
+              pa.copyItems()
                   .forEach(
                       item -> {
                         V1alpha1PipelineStatusInfoItem data = new V1alpha1PipelineStatusInfoItem();
@@ -714,10 +779,7 @@ public class PipelineSyncExecutor implements Runnable {
                         items.add(data);
                       });
             });
-    if (pipeline.getStatus().getInformation() == null) {
-      pipeline.getStatus().setInformation(new V1alpha1PipelineStatusInfo());
-    }
-    pipeline.getStatus().getInformation().setItems(items);
+    return items;
   }
 
   private static ThreadFactory namedRunSyncWorkerThreadFactory() {
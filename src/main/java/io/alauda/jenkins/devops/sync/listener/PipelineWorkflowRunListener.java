@@ -15,6 +15,7 @@ import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.util.NamespaceName;
 import io.alauda.jenkins.devops.sync.util.PipelineUtils;
 import io.alauda.jenkins.devops.sync.util.WorkflowJobUtils;
+import io.alauda.jenkins.devops.sync.var.PipelineContext;
 import javax.annotation.Nonnull;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -32,6 +33,11 @@ public class PipelineWorkflowRunListener extends RunListener<WorkflowRun> {
     if (!shouldPollRun(run)) {
       return;
     }
+
+    JenkinsPipelineCause cause = PipelineUtils.findAlaudaCause(run);
+    if (cause != null) {
+      PipelineSyncExecutor.getOrComputeStaticAnnotations(run, cause.getNamespace());
+    }
     PipelineSyncExecutor.getInstance().submit(run);
 
     updateParams(run);
@@ -40,6 +46,7 @@ public class PipelineWorkflowRunListener extends RunListener<WorkflowRun> {
 
   @Override
   public void onCompleted(WorkflowRun run, @Nonnull TaskListener listener) {
+    PipelineContext.flush(run);
     if (!shouldPollRun(run)) {
       return;
     }
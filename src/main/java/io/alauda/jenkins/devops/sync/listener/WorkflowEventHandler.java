@@ -11,6 +11,7 @@ import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.client.JenkinsClient;
 import io.alauda.jenkins.devops.sync.controller.predicates.BindResourcePredicate;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
 import io.alauda.jenkins.devops.sync.util.WorkflowJobUtils;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import java.util.logging.Level;
@@ -80,6 +81,18 @@ public class WorkflowEventHandler implements ItemEventHandler<WorkflowJob> {
   private void upsertWorkflowJob(WorkflowJob job) {
     WorkflowJobProperty property = pipelineConfigProjectForJob(job);
 
+    // skip the events caused by syncing PipelineConfig to job, otherwise we will write the same
+    // content back and trigger another reconcile
+    if (property != null
+        && jenkinsClient.isUpsertInProgress(property.getNamespace(), property.getName())) {
+      Metrics.suppressedEchoWriteCounter.inc();
+      logger.log(
+          Level.FINE,
+          "skip job {0}, it is updated by syncing PipelineConfig {1}/{2}",
+          new Object[] {job, property.getNamespace(), property.getName()});
+      return;
+    }
+
     // we just take care of our style's jobs
     if (property != null && isNotDeleteInProgress(property)) {
       logger.info(
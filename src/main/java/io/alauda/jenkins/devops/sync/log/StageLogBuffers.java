@@ -0,0 +1,136 @@
+package io.alauda.jenkins.devops.sync.log;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import jenkins.util.SystemProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stage log buffers of a run. Log written before the first stage started or outside any stage are
+ * kept in the buffer of {@link #NO_STAGE}.
+ *
+ * <p>Output stream of a run doesn't tell which stage the bytes belong to, so bytes are written into
+ * the buffer of the latest started stage. Logs of parallel stages might be mixed.
+ *
+ * <p>Buffers of all runs are limited to 64 MB in total by default, which could be changed by the
+ * system property <code>io.alauda.jenkins.devops.sync.log.StageLogBuffers.maxTotalSize</code> in
+ * MB. Stages started after the limit reached are not buffered.
+ */
+public class StageLogBuffers {
+  private static final Logger logger = LoggerFactory.getLogger(StageLogBuffers.class);
+
+  public static final String NO_STAGE = "";
+
+  private static final long MAX_TOTAL_BYTES =
+      SystemProperties.getLong(StageLogBuffers.class.getName() + ".maxTotalSize", 64L)
+          * 1024
+          * 1024;
+  // bytes allocated by buffers of all runs
+  private static final AtomicLong totalBytes = new AtomicLong();
+
+  // keep buffers for a while after the run completed, so that clients can read the rest logs
+  private static final Cache<String, StageLogBuffers> runBuffers =
+      CacheBuilder.newBuilder()
+          .maximumSize(500)
+          .expireAfterAccess(1, TimeUnit.HOURS)
+          .<String, StageLogBuffers>removalListener(
+              notification -> notification.getValue().release())
+          .build();
+
+  private final int capacity;
+  private final Map<String, StageLogRingBuffer> buffers =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+  private volatile String currentStage = NO_STAGE;
+  // bytes allocated by buffers of this run, guarded by buffers
+  private long allocatedBytes;
+  private boolean released;
+
+  private StageLogBuffers(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Create buffers for a run
+   *
+   * @param runId externalizable id of the run
+   * @param capacity capacity in bytes of each stage buffer
+   * @return buffers of the run
+   */
+  public static StageLogBuffers create(String runId, int capacity) {
+    StageLogBuffers stageLogBuffers = runBuffers.getIfPresent(runId);
+    if (stageLogBuffers == null) {
+      stageLogBuffers = new StageLogBuffers(capacity);
+      runBuffers.put(runId, stageLogBuffers);
+    }
+    return stageLogBuffers;
+  }
+
+  @CheckForNull
+  public static StageLogBuffers get(String runId) {
+    return runBuffers.getIfPresent(runId);
+  }
+
+  public void stageStarted(String stageId) {
+    currentStage = stageId;
+  }
+
+  public void write(byte[] b, int off, int len) {
+    StageLogRingBuffer buffer;
+    synchronized (buffers) {
+      String stage = currentStage;
+      buffer = buffers.get(stage);
+      if (buffer == null) {
+        if (released || !reserve()) {
+          return;
+        }
+        allocatedBytes += capacity;
+        buffer = new StageLogRingBuffer(capacity);
+        buffers.put(stage, buffer);
+      }
+    }
+    buffer.write(b, off, len);
+  }
+
+  @CheckForNull
+  public StageLogRingBuffer getBuffer(String stageId) {
+    return buffers.get(stageId);
+  }
+
+  /** @return id and bytes written of each stage */
+  public Map<String, Long> getStages() {
+    Map<String, Long> stages = new LinkedHashMap<>();
+    synchronized (buffers) {
+      buffers.forEach((stage, buffer) -> stages.put(stage, buffer.getWritten()));
+    }
+    return stages;
+  }
+
+  private boolean reserve() {
+    if (totalBytes.addAndGet(capacity) <= MAX_TOTAL_BYTES) {
+      return true;
+    }
+
+    totalBytes.addAndGet(-capacity);
+    logger.debug(
+        "Stage log buffers reached the limit of {} bytes, stage {} will not be buffered",
+        MAX_TOTAL_BYTES,
+        currentStage);
+    return false;
+  }
+
+  // called when evicted, buffers of the run could still be read by clients holding them
+  private void release() {
+    synchronized (buffers) {
+      released = true;
+      totalBytes.addAndGet(-allocatedBytes);
+      allocatedBytes = 0;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package io.alauda.jenkins.devops.sync.log;
+
+import hudson.Extension;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.remoting.Channel;
+import hudson.remoting.RemoteOutputStream;
+import io.alauda.jenkins.devops.sync.AlaudaSyncGlobalConfiguration;
+import io.alauda.jenkins.devops.sync.util.PipelineUtils;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.log.TaskListenerDecorator;
+
+/**
+ * Copies the log of runs triggered by Alauda into the stage log buffers. Output of steps running on
+ * agents, like sh and bat, is sent back to master through a remote stream.
+ */
+@Extension
+public class StageLogDecoratorFactory implements TaskListenerDecorator.Factory {
+
+  @CheckForNull
+  @Override
+  public TaskListenerDecorator of(@Nonnull FlowExecutionOwner owner) {
+    int bufferSize = AlaudaSyncGlobalConfiguration.get().getStageLogBufferSize();
+    if (bufferSize <= 0) {
+      return null;
+    }
+
+    Queue.Executable executable;
+    try {
+      executable = owner.getExecutable();
+    } catch (IOException e) {
+      return null;
+    }
+
+    if (!(executable instanceof WorkflowRun)
+        || PipelineUtils.findAlaudaCause((WorkflowRun) executable) == null) {
+      return null;
+    }
+
+    String runId = ((Run) executable).getExternalizableId();
+    StageLogBuffers.create(runId, bufferSize * 1024);
+    return new StageLogDecorator(runId);
+  }
+
+  private static class StageLogDecorator extends TaskListenerDecorator {
+    private static final long serialVersionUID = 1L;
+
+    private final String runId;
+    // output of steps running on agents is sent back to master through this stream, only set in
+    // the decorator sent to agents
+    @CheckForNull private final RemoteOutputStream remote;
+
+    StageLogDecorator(String runId) {
+      this(runId, null);
+    }
+
+    private StageLogDecorator(String runId, @CheckForNull RemoteOutputStream remote) {
+      this.runId = runId;
+      this.remote = remote;
+    }
+
+    @Nonnull
+    @Override
+    public OutputStream decorate(@Nonnull OutputStream logger) {
+      OutputStream copy;
+      if (Jenkins.getInstanceOrNull() != null) {
+        copy = StageLogBuffers.get(runId) == null ? null : new BuffersOutputStream(runId);
+      } else {
+        copy = remote;
+      }
+
+      if (copy == null) {
+        return logger;
+      }
+      return new CopyingOutputStream(logger, copy);
+    }
+
+    private Object writeReplace() {
+      // export a stream to the buffers when the decorator is sent to an agent
+      if (remote != null || Channel.current() == null) {
+        return this;
+      }
+      return new StageLogDecorator(runId, new RemoteOutputStream(new BuffersOutputStream(runId)));
+    }
+  }
+
+  /** Writes into the stage log buffers of a run, bytes are dropped if no buffers found. */
+  private static class BuffersOutputStream extends OutputStream {
+    private final String runId;
+
+    BuffersOutputStream(String runId) {
+      this.runId = runId;
+    }
+
+    @Override
+    public void write(int b) {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) {
+      StageLogBuffers buffers = StageLogBuffers.get(runId);
+      if (buffers != null) {
+        buffers.write(b, off, len);
+      }
+    }
+  }
+
+  /** Writes to the log and copies bytes to another stream, failures of copying are ignored. */
+  private static class CopyingOutputStream extends FilterOutputStream {
+    private final OutputStream copy;
+    private boolean copyFailed;
+
+    CopyingOutputStream(OutputStream out, OutputStream copy) {
+      super(out);
+      this.copy = copy;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      copy(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      copy(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        // closing the remote stream unexports it from the channel
+        try {
+          copy.close();
+        } catch (IOException e) {
+          copyFailed = true;
+        }
+      }
+    }
+
+    private void copy(byte[] b, int off, int len) {
+      if (copyFailed) {
+        return;
+      }
+
+      try {
+        copy.write(b, off, len);
+      } catch (IOException e) {
+        // the channel to master might be closed, the log itself should not be affected
+        copyFailed = true;
+      }
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package io.alauda.jenkins.devops.sync.log;
+
+import hudson.Extension;
+import hudson.model.Queue;
+import hudson.model.Run;
+import io.alauda.jenkins.devops.sync.util.FlowNodeUtils;
+import java.io.IOException;
+import org.jenkinsci.plugins.workflow.flow.GraphListener;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+
+/** Switches the stage log buffer when a stage started. */
+@Extension
+public class StageLogGraphListener implements GraphListener {
+
+  @Override
+  public void onNewHead(FlowNode node) {
+    if (!FlowNodeUtils.isStageOrBranchStart(node)) {
+      return;
+    }
+
+    Queue.Executable executable;
+    try {
+      executable = node.getExecution().getOwner().getExecutable();
+    } catch (IOException e) {
+      return;
+    }
+
+    if (!(executable instanceof Run)) {
+      return;
+    }
+
+    StageLogBuffers buffers = StageLogBuffers.get(((Run) executable).getExternalizableId());
+    if (buffers != null) {
+      // the stage is identified by the id of its start node, same as the Blue Ocean node id
+      buffers.stageStarted(node.getId());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package io.alauda.jenkins.devops.sync.log;
+
+/**
+ * Keeps the last bytes of a stage log. Offsets are counted from the beginning of the stage log, so
+ * clients can continue reading from the offset they got last time.
+ */
+public class StageLogRingBuffer {
+  private final byte[] buffer;
+  // total bytes written into this buffer, also the offset of next byte
+  private long written;
+
+  public StageLogRingBuffer(int capacity) {
+    this.buffer = new byte[capacity];
+  }
+
+  public synchronized void write(byte[] b, int off, int len) {
+    if (len >= buffer.length) {
+      // only the tail fits into buffer
+      off += len - buffer.length;
+      written += len - buffer.length;
+      len = buffer.length;
+    }
+
+    int pos = (int) (written % buffer.length);
+    int first = Math.min(len, buffer.length - pos);
+    System.arraycopy(b, off, buffer, pos, first);
+    System.arraycopy(b, off + first, buffer, 0, len - first);
+    written += len;
+  }
+
+  public synchronized long getWritten() {
+    return written;
+  }
+
+  /**
+   * Read the bytes start from the given offset. If the bytes at the offset were already dropped,
+   * read from the earliest byte still in buffer.
+   *
+   * @param from offset to read from
+   * @return the bytes and the offset they start from
+   */
+  public synchronized Chunk read(long from) {
+    long earliest = Math.max(0, written - buffer.length);
+    long start = Math.min(Math.max(from, earliest), written);
+    byte[] data = new byte[(int) (written - start)];
+
+    int pos = (int) (start % buffer.length);
+    int first = Math.min(data.length, buffer.length - pos);
+    System.arraycopy(buffer, pos, data, 0, first);
+    System.arraycopy(buffer, 0, data, first, data.length - first);
+    return new Chunk(start, data);
+  }
+
+  public static class Chunk {
+    private final long start;
+    private final byte[] data;
+
+    Chunk(long start, byte[] data) {
+      this.start = start;
+      this.data = data;
+    }
+
+    public long getStart() {
+      return start;
+    }
+
+    public long getEnd() {
+      return start + data.length;
+    }
+
+    public byte[] getData() {
+      return data;
+    }
+  }
+}
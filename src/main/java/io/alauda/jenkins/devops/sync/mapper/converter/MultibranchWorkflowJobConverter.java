@@ -111,7 +111,7 @@ public class MultibranchWorkflowJobConverter implements JobConverter<WorkflowMul
     ((WorkflowBranchProjectFactory) factory).setScriptPath(jenkinsStrategy.getJenkinsfilePath());
 
     setupOrphanedStrategy(job, pipelineConfig);
-    setupSCMSource(job, pipelineConfig);
+    String codeRepositoryResourceVersion = setupSCMSource(job, pipelineConfig);
     setUpTriggers(job, pipelineConfig);
 
     String namespace = pipelineConfig.getMetadata().getNamespace();
@@ -124,10 +124,16 @@ public class MultibranchWorkflowJobConverter implements JobConverter<WorkflowMul
                 namespace, mapper.jenkinsJobName(namespace, name)));
     addAnnotations(pipelineConfig, logURLs);
 
+    // record the spec hash only after the job converted successfully
+    mbProperty.setSpecHash(
+        mbProperty.generateSpecHash(pipelineConfig, codeRepositoryResourceVersion));
+
     return job;
   }
 
-  private void setupSCMSource(WorkflowMultiBranchProject job, V1alpha1PipelineConfig pipelineConfig)
+  /** @return resourceVersion of the CodeRepository used, null if using plain git url */
+  private String setupSCMSource(
+      WorkflowMultiBranchProject job, V1alpha1PipelineConfig pipelineConfig)
       throws PipelineConfigConvertException {
     logger.debug("Starting setup SCMSource for Workflow job {}", job.getFullName());
 
@@ -146,6 +152,7 @@ public class MultibranchWorkflowJobConverter implements JobConverter<WorkflowMul
 
     GitProviderMultiBranch gitProvider = null;
     SCMSource scmSource = getCurrentSCMSource(job);
+    String codeRepositoryResourceVersion = null;
 
     if (source.getCodeRepository() == null && source.getGit() != null) {
       logger.debug("No CodeRepository configured in PipelineConfig, fallback to use plain git url");
@@ -181,6 +188,7 @@ public class MultibranchWorkflowJobConverter implements JobConverter<WorkflowMul
                 pipelineConfig.getMetadata().getNamespace(), source.getCodeRepository().getName()));
       }
 
+      codeRepositoryResourceVersion = codeRepository.getMetadata().getResourceVersion();
       V1alpha1OriginCodeRepository originCodeRepository = codeRepository.getSpec().getRepository();
       String[] repoFullName = originCodeRepository.getFullName().split("/");
       String repository = repoFullName[repoFullName.length - 1];
@@ -291,6 +299,7 @@ public class MultibranchWorkflowJobConverter implements JobConverter<WorkflowMul
     handleCredentials(scmSource, pipelineConfig);
     scmSource.setOwner(job);
     scmSource.afterSave();
+    return codeRepositoryResourceVersion;
   }
 
   private SCMSource setNewSCMSource(WorkflowMultiBranchProject job, SCMSource newSCMSource)
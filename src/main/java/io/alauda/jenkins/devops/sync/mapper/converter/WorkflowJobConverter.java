@@ -164,6 +164,12 @@ public class WorkflowJobConverter implements JobConverter<WorkflowJob> {
       }
     }
 
+    // record the spec hash only after the job converted successfully
+    WorkflowJobProperty property = jenkinsClient.getWorkflowJobProperty(job);
+    if (property != null) {
+      property.setSpecHash(property.generateSpecHash(pipelineConfig, null));
+    }
+
     return job;
   }
 }
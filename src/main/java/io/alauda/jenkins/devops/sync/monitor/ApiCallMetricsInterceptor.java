@@ -0,0 +1,107 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.prometheus.client.Histogram;
+import java.io.IOException;
+import java.util.List;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/** Records the latency of apiserver calls by verb and resource. Watch calls are skipped. */
+public class ApiCallMetricsInterceptor implements Interceptor {
+
+  /**
+   * Add the interceptor to the http client of the ApiClient if it was not added.
+   *
+   * @param apiClient client to add interceptor
+   */
+  public static void install(ApiClient apiClient) {
+    OkHttpClient httpClient = apiClient.getHttpClient();
+    if (httpClient
+        .interceptors()
+        .stream()
+        .anyMatch(interceptor -> interceptor instanceof ApiCallMetricsInterceptor)) {
+      return;
+    }
+
+    apiClient.setHttpClient(
+        httpClient.newBuilder().addInterceptor(new ApiCallMetricsInterceptor()).build());
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    HttpUrl url = request.url();
+    if ("true".equals(url.queryParameter("watch"))) {
+      return chain.proceed(request);
+    }
+
+    Histogram.Timer timer = null;
+    String[] verbAndResource = parse(request.method(), url.pathSegments());
+    if (verbAndResource != null) {
+      timer =
+          Metrics.apiCallLatencyHistogram
+              .labels(verbAndResource[0], verbAndResource[1])
+              .startTimer();
+    }
+
+    try {
+      return chain.proceed(request);
+    } finally {
+      if (timer != null) {
+        timer.observeDuration();
+      }
+    }
+  }
+
+  /**
+   * Parse verb and resource from paths like /api/v1/namespaces/{namespace}/{resource}/{name} or
+   * /apis/{group}/{version}/{resource}/{name}/{subresource}.
+   */
+  static String[] parse(String method, List<String> segments) {
+    int start;
+    if (segments.size() > 2 && "api".equals(segments.get(0))) {
+      start = 2;
+    } else if (segments.size() > 3 && "apis".equals(segments.get(0))) {
+      start = 3;
+    } else {
+      return null;
+    }
+
+    List<String> rest = segments.subList(start, segments.size());
+    if (rest.size() >= 3 && "namespaces".equals(rest.get(0))) {
+      rest = rest.subList(2, rest.size());
+    }
+
+    String resource = rest.get(0);
+    if (rest.size() >= 3) {
+      resource = resource + "/" + rest.get(2);
+    }
+    boolean hasName = rest.size() >= 2;
+
+    String verb;
+    switch (method) {
+      case "GET":
+        verb = hasName ? "get" : "list";
+        break;
+      case "POST":
+        verb = "create";
+        break;
+      case "PUT":
+        verb = "update";
+        break;
+      case "PATCH":
+        verb = "patch";
+        break;
+      case "DELETE":
+        verb = hasName ? "delete" : "deletecollection";
+        break;
+      default:
+        verb = method.toLowerCase();
+    }
+    return new String[] {verb, resource};
+  }
+}
@@ -0,0 +1,78 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
+import io.kubernetes.client.extended.workqueue.ratelimiter.RateLimiter;
+import io.prometheus.client.Histogram;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Records how long items waited in the queue, from the time they were added until a worker got
+ * them. Items added again while waiting are merged by the queue, the first add time is used.
+ *
+ * <p>The delaying queue adds items to the work queue by calling the super methods, so the add time
+ * is recorded when items are enqueued by any method, and the wait includes the rate limited or
+ * requested delay.
+ */
+public class InstrumentedRateLimitingQueue<T> extends DefaultRateLimitingQueue<T> {
+  private final String name;
+  private final Map<T, Long> addTimes = new ConcurrentHashMap<>();
+
+  public InstrumentedRateLimitingQueue(String name, ExecutorService waitingWorker) {
+    super(waitingWorker);
+    this.name = name;
+  }
+
+  public InstrumentedRateLimitingQueue(
+      String name, ExecutorService waitingWorker, RateLimiter<T> rateLimiter) {
+    super(waitingWorker, rateLimiter);
+    this.name = name;
+  }
+
+  @Override
+  public void add(T item) {
+    recordAddTime(item);
+    super.add(item);
+  }
+
+  @Override
+  public void addAfter(T item, Duration duration) {
+    recordAddTime(item);
+    super.addAfter(item, duration);
+  }
+
+  @Override
+  public void addRateLimited(T item) {
+    recordAddTime(item);
+    super.addRateLimited(item);
+  }
+
+  @Override
+  public void shutDown() {
+    super.shutDown();
+    addTimes.clear();
+  }
+
+  private void recordAddTime(T item) {
+    // items added after shutdown are dropped by the queue
+    if (!isShuttingDown()) {
+      addTimes.putIfAbsent(item, System.nanoTime());
+    }
+  }
+
+  @Override
+  public T get() throws InterruptedException {
+    T item = super.get();
+    if (item != null) {
+      Long addTime = addTimes.remove(item);
+      if (addTime != null) {
+        Metrics.queueWaitHistogram
+            .labels(name)
+            .observe((System.nanoTime() - addTime) / (double) Histogram.NANOSECONDS_PER_SECOND);
+      }
+    }
+    return item;
+  }
+}
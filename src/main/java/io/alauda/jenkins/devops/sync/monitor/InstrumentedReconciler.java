@@ -0,0 +1,40 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import io.kubernetes.client.extended.controller.reconciler.Reconciler;
+import io.kubernetes.client.extended.controller.reconciler.Request;
+import io.kubernetes.client.extended.controller.reconciler.Result;
+import io.prometheus.client.Histogram;
+
+/** Records the duration, outcome and requeues of a reconciler. */
+public class InstrumentedReconciler implements Reconciler {
+  private final String controllerName;
+  private final Reconciler reconciler;
+
+  public InstrumentedReconciler(String controllerName, Reconciler reconciler) {
+    this.controllerName = controllerName;
+    this.reconciler = reconciler;
+  }
+
+  @Override
+  public Result reconcile(Request request) {
+    long start = System.nanoTime();
+    String outcome = "error";
+    try {
+      Result result = reconciler.reconcile(request);
+      if (result != null && result.isRequeue()) {
+        outcome = "requeue";
+        Metrics.requeueCounter.labels(controllerName, "requested").inc();
+      } else {
+        outcome = "success";
+      }
+      return result;
+    } catch (RuntimeException e) {
+      Metrics.requeueCounter.labels(controllerName, "error").inc();
+      throw e;
+    } finally {
+      Metrics.reconcileDurationHistogram
+          .labels(controllerName, outcome)
+          .observe((System.nanoTime() - start) / (double) Histogram.NANOSECONDS_PER_SECOND);
+    }
+  }
+}
@@ -2,6 +2,7 @@ package io.alauda.jenkins.devops.sync.monitor;
 
 import io.prometheus.client.Counter;
 import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
 import org.jenkinsci.plugins.prometheus.util.ConfigurationUtils;
 
 public class Metrics {
@@ -15,6 +16,28 @@ public class Metrics {
 
   public static final Gauge syncManagerUpGauge;
 
+  public static final Counter folderSaveAvoidedCounter;
+
+  public static final Counter suppressedEchoWriteCounter;
+
+  public static final Counter multiBranchPipelineConfigCacheCounter;
+
+  public static final Histogram reconcileDurationHistogram;
+
+  public static final Histogram queueWaitHistogram;
+
+  public static final Histogram apiCallLatencyHistogram;
+
+  public static final Histogram pipelineSyncPhaseHistogram;
+
+  public static final Counter requeueCounter;
+
+  public static final Counter orphanJobsRemovedCounter;
+
+  public static final Counter jenkinsStatusUpdateCounter;
+
+  public static final Gauge shardMembersGauge;
+
   static {
     String subsystem = "jenkins";
     String namespace = ConfigurationUtils.getNamespace();
@@ -56,5 +79,107 @@ public class Metrics {
             .subsystem(subsystem)
             .help("If the sync plugin ready")
             .register();
+
+    folderSaveAvoidedCounter =
+        Counter.build()
+            .name("sync_folder_save_avoided")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .help("Number of namespace folder saves skipped because the folder was already synced")
+            .register();
+
+    suppressedEchoWriteCounter =
+        Counter.build()
+            .name("sync_suppressed_echo_writes")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .help("Number of job updates caused by the sync itself that were not written back")
+            .register();
+
+    multiBranchPipelineConfigCacheCounter =
+        Counter.build()
+            .name("sync_multibranch_pipelineconfig_cache")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("result")
+            .help(
+                "PipelineConfig reads of multi-branch sync served by informer cache (hit), "
+                    + "apiserver (miss) or apiserver after the cached one is stale (stale)")
+            .register();
+
+    reconcileDurationHistogram =
+        Histogram.build()
+            .name("sync_controller_reconcile_duration_seconds")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("controller_name", "outcome")
+            .buckets(0.005, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30)
+            .help("Duration of reconciling by controller and outcome")
+            .register();
+
+    queueWaitHistogram =
+        Histogram.build()
+            .name("sync_controller_queue_wait_seconds")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames(controllerLabelNames)
+            .buckets(0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300)
+            .help("Time requests waited in workqueue before being processed")
+            .register();
+
+    apiCallLatencyHistogram =
+        Histogram.build()
+            .name("sync_apiserver_request_duration_seconds")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("verb", "resource")
+            .buckets(0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10)
+            .help("Latency of apiserver calls by verb and resource, watch calls are excluded")
+            .register();
+
+    pipelineSyncPhaseHistogram =
+        Histogram.build()
+            .name("sync_pipeline_sync_phase_duration_seconds")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("phase")
+            .buckets(0.001, 0.005, 0.01, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5)
+            .help("Duration of each phase of syncing a run to Pipeline")
+            .register();
+
+    requeueCounter =
+        Counter.build()
+            .name("sync_controller_requeue")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("controller_name", "reason")
+            .help("Number of requests requeued by controller and reason")
+            .register();
+
+    orphanJobsRemovedCounter =
+        Counter.build()
+            .name("sync_orphan_jobs_removed")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("source")
+            .help("Number of Jenkins jobs removed because their PipelineConfigs were deleted")
+            .register();
+
+    jenkinsStatusUpdateCounter =
+        Counter.build()
+            .name("sync_jenkins_status_update")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .labelNames("result")
+            .help("Number of Jenkins resource status updates by result, skipped if not changed")
+            .register();
+
+    shardMembersGauge =
+        Gauge.build()
+            .name("sync_shard_members")
+            .namespace(namespace)
+            .subsystem(subsystem)
+            .help("Number of live Jenkins masters sharing the namespaces, 0 if sharding disabled")
+            .register();
   }
 }
@@ -0,0 +1,170 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import io.kubernetes.client.openapi.ApiClient;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.apache.commons.lang.math.NumberUtils;
+
+/**
+ * Tracks the progress of the open watch connections by resource. A watch makes progress when it
+ * receives any bytes of events, no matter which namespace the events belong to or whether the
+ * controller filters them out later.
+ *
+ * <p>apiserver closes a watch after its timeoutSeconds and the informer watches again, so a watch
+ * that is still open but received nothing for longer than its timeout is stalled.
+ */
+public class WatchProgressInterceptor implements Interceptor {
+
+  // used when the watch request has no timeoutSeconds, same as the max timeout of informers
+  private static final long DEFAULT_TIMEOUT_SECONDS = 600;
+  private static final long STALL_MARGIN = TimeUnit.MINUTES.toMillis(1);
+
+  private static final Set<WatchConnection> connections = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Add the interceptor to the http client of the ApiClient if it was not added.
+   *
+   * @param apiClient client to add interceptor
+   */
+  public static void install(ApiClient apiClient) {
+    OkHttpClient httpClient = apiClient.getHttpClient();
+    if (httpClient
+        .interceptors()
+        .stream()
+        .anyMatch(interceptor -> interceptor instanceof WatchProgressInterceptor)) {
+      return;
+    }
+
+    apiClient.setHttpClient(
+        httpClient.newBuilder().addInterceptor(new WatchProgressInterceptor()).build());
+  }
+
+  /**
+   * Find a stalled watch of the resource.
+   *
+   * @param resource resource in the path of watch requests, like pipelineconfigs
+   * @param since only watches opened after this time in millis are checked
+   * @return path of the stalled watch, null if all watches of the resource are making progress
+   */
+  @CheckForNull
+  public static String findStalledWatch(String resource, long since) {
+    long now = System.currentTimeMillis();
+    return connections
+        .stream()
+        .filter(connection -> connection.resource.equals(resource))
+        .filter(connection -> connection.openTime >= since)
+        .filter(connection -> now - connection.lastProgressTime > connection.timeout + STALL_MARGIN)
+        .map(connection -> connection.path)
+        .findFirst()
+        .orElse(null);
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    HttpUrl url = request.url();
+    if (!"true".equals(url.queryParameter("watch"))) {
+      return chain.proceed(request);
+    }
+
+    String[] verbAndResource = ApiCallMetricsInterceptor.parse(request.method(), url.pathSegments());
+    if (verbAndResource == null) {
+      return chain.proceed(request);
+    }
+
+    Response response = chain.proceed(request);
+    ResponseBody body = response.body();
+    if (!response.isSuccessful() || body == null) {
+      return response;
+    }
+
+    long timeout =
+        TimeUnit.SECONDS.toMillis(
+            NumberUtils.toLong(url.queryParameter("timeoutSeconds"), DEFAULT_TIMEOUT_SECONDS));
+    WatchConnection connection =
+        new WatchConnection(verbAndResource[1], url.encodedPath(), timeout);
+    connections.add(connection);
+    return response.newBuilder().body(new ProgressBody(connection, body)).build();
+  }
+
+  private static class WatchConnection {
+    private final String resource;
+    private final String path;
+    private final long timeout;
+    private final long openTime = System.currentTimeMillis();
+    private volatile long lastProgressTime = openTime;
+
+    WatchConnection(String resource, String path, long timeout) {
+      this.resource = resource;
+      this.path = path;
+      this.timeout = timeout;
+    }
+  }
+
+  /** Updates the progress of the watch when it is read, forgets the watch once it is closed. */
+  private static class ProgressBody extends ResponseBody {
+    private final ResponseBody delegate;
+    private final BufferedSource source;
+
+    ProgressBody(WatchConnection connection, ResponseBody delegate) {
+      this.delegate = delegate;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                  long read;
+                  try {
+                    read = super.read(sink, byteCount);
+                  } catch (IOException e) {
+                    connections.remove(connection);
+                    throw e;
+                  }
+
+                  if (read > 0) {
+                    connection.lastProgressTime = System.currentTimeMillis();
+                  } else if (read == -1) {
+                    connections.remove(connection);
+                  }
+                  return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                  connections.remove(connection);
+                  super.close();
+                }
+              });
+    }
+
+    @CheckForNull
+    @Override
+    public MediaType contentType() {
+      return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+      return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import com.google.gson.JsonObject;
+import hudson.init.Terminator;
+import io.kubernetes.client.openapi.ApiClient;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.CheckForNull;
+import jenkins.util.SystemProperties;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the list responses and watch events received from apiserver to a gzip file, so that a
+ * slow sync could be replayed offline by {@link WatchTrafficReplayer}. Only enabled when the system
+ * property <code>io.alauda.jenkins.devops.sync.monitor.WatchTrafficRecorder.file</code> is set.
+ *
+ * <p>Every line of the file is a record like <code>
+ * {"time": 1200, "path": "/apis/devops.alauda.io/v1alpha1/pipelines", "watch": true, "body": "..."}
+ * </code>, time is milliseconds since the recording started, body is the whole list response or
+ * one watch event.
+ */
+public class WatchTrafficRecorder implements Interceptor {
+  private static final Logger logger = LoggerFactory.getLogger(WatchTrafficRecorder.class);
+
+  static final String FILE_PROPERTY = WatchTrafficRecorder.class.getName() + ".file";
+
+  // the ApiClient might be replaced when cluster configuration changed, all of them share the same
+  // recording
+  private static WatchTrafficRecorder instance;
+
+  private final Writer writer;
+  private final long startTime = System.currentTimeMillis();
+  private boolean closed;
+
+  private WatchTrafficRecorder(File file) throws IOException {
+    writer =
+        new OutputStreamWriter(
+            new GZIPOutputStream(new FileOutputStream(file), true), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Add the recorder to the http client of the ApiClient if recording is enabled.
+   *
+   * @param apiClient client to add interceptor
+   */
+  public static synchronized void install(ApiClient apiClient) {
+    String file = SystemProperties.getString(FILE_PROPERTY);
+    if (StringUtils.isEmpty(file)) {
+      return;
+    }
+
+    if (instance == null) {
+      try {
+        instance = new WatchTrafficRecorder(new File(file));
+      } catch (IOException e) {
+        logger.warn("[WatchTrafficRecorder] Unable to create recording {}, reason {}", file, e);
+        return;
+      }
+      logger.info("[WatchTrafficRecorder] Recording list and watch traffic to {}", file);
+    }
+
+    OkHttpClient httpClient = apiClient.getHttpClient();
+    if (httpClient.interceptors().contains(instance)) {
+      return;
+    }
+    apiClient.setHttpClient(httpClient.newBuilder().addInterceptor(instance).build());
+  }
+
+  @Terminator
+  public static synchronized void closeRecording() {
+    if (instance != null) {
+      instance.close();
+    }
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    HttpUrl url = request.url();
+    String[] verbAndResource = ApiCallMetricsInterceptor.parse(request.method(), url.pathSegments());
+    if (verbAndResource == null || !"list".equals(verbAndResource[0])) {
+      return chain.proceed(request);
+    }
+
+    Response response = chain.proceed(request);
+    ResponseBody body = response.body();
+    if (!response.isSuccessful() || body == null) {
+      return response;
+    }
+
+    String path = url.encodedPath();
+    if (!"true".equals(url.queryParameter("watch"))) {
+      String content = body.string();
+      record(path, false, content);
+      return response.newBuilder().body(ResponseBody.create(body.contentType(), content)).build();
+    }
+
+    return response.newBuilder().body(new RecordingBody(path, body)).build();
+  }
+
+  private synchronized void record(String path, boolean watch, String body) {
+    if (closed) {
+      return;
+    }
+
+    JsonObject record = new JsonObject();
+    record.addProperty("time", System.currentTimeMillis() - startTime);
+    record.addProperty("path", path);
+    record.addProperty("watch", watch);
+    record.addProperty("body", body);
+    try {
+      writer.write(record.toString());
+      writer.write('\n');
+      writer.flush();
+    } catch (IOException e) {
+      logger.warn("[WatchTrafficRecorder] Failed to record, will stop recording, reason {}", e);
+      close();
+    }
+  }
+
+  private synchronized void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    try {
+      writer.close();
+    } catch (IOException e) {
+      logger.warn("[WatchTrafficRecorder] Failed to close recording, reason {}", e.getMessage());
+    }
+  }
+
+  /** Records every line of the watch stream when it is read by the informer. */
+  private class RecordingBody extends ResponseBody {
+    private final String path;
+    private final ResponseBody delegate;
+    private final Buffer pending = new Buffer();
+    private final BufferedSource source;
+
+    RecordingBody(String path, ResponseBody delegate) {
+      this.path = path;
+      this.delegate = delegate;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                  long read = super.read(sink, byteCount);
+                  if (read > 0) {
+                    sink.copyTo(pending, sink.size() - read, read);
+                    recordLines();
+                  }
+                  return read;
+                }
+              });
+    }
+
+    private void recordLines() throws IOException {
+      long index;
+      while ((index = pending.indexOf((byte) '\n')) != -1) {
+        String line = pending.readUtf8(index);
+        pending.skip(1);
+        if (!line.isEmpty()) {
+          record(path, true, line);
+        }
+      }
+    }
+
+    @CheckForNull
+    @Override
+    public MediaType contentType() {
+      return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+      return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+}
@@ -0,0 +1,447 @@
+package io.alauda.jenkins.devops.sync.monitor;
+
+import static io.alauda.jenkins.devops.sync.constants.Constants.ALAUDA_DEVOPS_ANNOTATIONS_JENKINS_IDENTITY;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Histogram;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import javax.annotation.CheckForNull;
+import jenkins.util.SystemProperties;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stands in for apiserver and replays a recording of {@link WatchTrafficRecorder}, so that a sync
+ * slowdown could be reproduced offline. Only enabled when the system property <code>
+ * io.alauda.jenkins.devops.sync.monitor.WatchTrafficReplayer.file</code> is set, the property
+ * <code>io.alauda.jenkins.devops.sync.monitor.WatchTrafficReplayer.speed</code> accelerates the
+ * replay, e.g. 10 replays the recording 10 times faster.
+ *
+ * <ul>
+ *   <li>Lists are served by the latest recorded list of the replay time.
+ *   <li>Watch events are streamed at their recorded time.
+ *   <li>Gets are served from the items of recorded lists.
+ *   <li>Writes succeed without any effects.
+ * </ul>
+ *
+ * <p>The Jenkins service in configuration must be the one used when recording. Once all events
+ * replayed and controllers become idle, throughput and latency of reconciles are logged.
+ */
+public class WatchTrafficReplayer implements Interceptor {
+  private static final Logger logger = LoggerFactory.getLogger(WatchTrafficReplayer.class);
+
+  static final String FILE_PROPERTY = WatchTrafficReplayer.class.getName() + ".file";
+  static final String SPEED_PROPERTY = WatchTrafficReplayer.class.getName() + ".speed";
+
+  private static final MediaType JSON_TYPE = MediaType.get("application/json; charset=utf-8");
+  private static final long DEFAULT_WATCH_TIMEOUT_SECONDS = 300;
+  private static final long REPORT_CHECK_INTERVAL_SECONDS = 5;
+
+  private static WatchTrafficReplayer instance;
+
+  private final Gson gson = new Gson();
+  private final double speed;
+  // records by path, ordered by time
+  private final Map<String, List<Record>> lists = new HashMap<>();
+  private final Map<String, List<Record>> events = new HashMap<>();
+  // index of the next event to stream by path
+  private final Map<String, Integer> cursors = new ConcurrentHashMap<>();
+
+  private volatile long startTime;
+  private Map<String, double[]> baseline;
+  private double lastReconcileCount = -1;
+  private ScheduledExecutorService reporter;
+
+  private WatchTrafficReplayer(File file, double speed) throws IOException {
+    this.speed = speed;
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        Record record = gson.fromJson(line, Record.class);
+        (record.watch ? events : lists)
+            .computeIfAbsent(record.path, path -> new ArrayList<>())
+            .add(record);
+      }
+    }
+  }
+
+  /**
+   * Add the replayer to the http client of the ApiClient if replaying is enabled. All requests of
+   * the ApiClient will be served by the replayer.
+   *
+   * @param apiClient client to add interceptor
+   */
+  public static synchronized void install(ApiClient apiClient) {
+    String file = SystemProperties.getString(FILE_PROPERTY);
+    if (StringUtils.isEmpty(file)) {
+      return;
+    }
+
+    if (instance == null) {
+      double speed = Double.parseDouble(SystemProperties.getString(SPEED_PROPERTY, "1"));
+      try {
+        instance = new WatchTrafficReplayer(new File(file), speed > 0 ? speed : 1);
+      } catch (IOException | RuntimeException e) {
+        logger.warn("[WatchTrafficReplayer] Unable to load recording {}, reason {}", file, e);
+        return;
+      }
+      logger.info(
+          "[WatchTrafficReplayer] Loaded recording {}, {} lists and {} watch paths, speed {}x",
+          file,
+          instance.lists.size(),
+          instance.events.size(),
+          instance.speed);
+    }
+
+    OkHttpClient httpClient = apiClient.getHttpClient();
+    if (httpClient.interceptors().contains(instance)) {
+      return;
+    }
+    apiClient.setHttpClient(httpClient.newBuilder().addInterceptor(instance).build());
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    start();
+
+    if (!"GET".equals(request.method())) {
+      // echo the created or updated object, other writes don't need a meaningful response
+      String body = "{}";
+      if (request.body() != null
+          && ("POST".equals(request.method()) || "PUT".equals(request.method()))) {
+        Buffer buffer = new Buffer();
+        request.body().writeTo(buffer);
+        body = buffer.readUtf8();
+      }
+      return respond(request, 200, ResponseBody.create(JSON_TYPE, body));
+    }
+
+    HttpUrl url = request.url();
+    String path = url.encodedPath();
+    if ("true".equals(url.queryParameter("watch"))) {
+      long timeoutSeconds =
+          NumberUtils.toLong(
+              url.queryParameter("timeoutSeconds"), DEFAULT_WATCH_TIMEOUT_SECONDS);
+      return respond(
+          request,
+          200,
+          ResponseBody.create(
+              JSON_TYPE,
+              -1,
+              Okio.buffer(
+                  new EventSource(path, System.currentTimeMillis() + timeoutSeconds * 1000))));
+    }
+
+    String body = get(url.pathSegments());
+    if (body == null) {
+      return respond(
+          request,
+          404,
+          ResponseBody.create(
+              JSON_TYPE, "{\"kind\":\"Status\",\"status\":\"Failure\",\"code\":404}"));
+    }
+    return respond(request, 200, ResponseBody.create(JSON_TYPE, body));
+  }
+
+  private Response respond(Request request, int code, ResponseBody body) {
+    return new Response.Builder()
+        .request(request)
+        .protocol(Protocol.HTTP_1_1)
+        .code(code)
+        .message(code == 200 ? "OK" : "Not Found")
+        .body(body)
+        .build();
+  }
+
+  private synchronized void start() {
+    if (startTime != 0) {
+      return;
+    }
+
+    startTime = System.currentTimeMillis();
+    baseline = reconcileStats();
+    reporter =
+        Executors.newSingleThreadScheduledExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "WatchTrafficReplayer"));
+    reporter.scheduleWithFixedDelay(
+        this::reportIfFinished,
+        REPORT_CHECK_INTERVAL_SECONDS,
+        REPORT_CHECK_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  /** @return the time in recording that corresponds to now */
+  private long replayTime() {
+    return (long) ((System.currentTimeMillis() - startTime) * speed);
+  }
+
+  /** Serve lists and gets of both namespaced and cluster scoped resources from recorded lists. */
+  @CheckForNull
+  private String get(List<String> segments) {
+    String path = "/" + String.join("/", segments);
+    if (lists.containsKey(path)) {
+      return toJSON(listOf(path, null));
+    }
+
+    // namespaced resources were recorded by lists of all namespaces
+    String namespace = null;
+    String name = null;
+    List<String> collection;
+    int index = segments.indexOf("namespaces");
+    if (index >= 0 && segments.size() > index + 2) {
+      namespace = segments.get(index + 1);
+      List<String> rest = segments.subList(index + 2, segments.size());
+      if (rest.size() > 2) {
+        // subresources are not recorded
+        return null;
+      }
+      collection = new ArrayList<>(segments.subList(0, index));
+      collection.add(rest.get(0));
+      if (rest.size() == 2) {
+        name = rest.get(1);
+      }
+    } else if (segments.size() >= 2) {
+      collection = segments.subList(0, segments.size() - 1);
+      name = segments.get(segments.size() - 1);
+    } else {
+      return null;
+    }
+
+    String collectionPath = "/" + String.join("/", collection);
+    if (!lists.containsKey(collectionPath)) {
+      return null;
+    }
+
+    JsonObject list = listOf(collectionPath, namespace);
+    if (name == null) {
+      return toJSON(list);
+    }
+
+    for (JsonElement item : list.getAsJsonArray("items")) {
+      JsonObject metadata = item.getAsJsonObject().getAsJsonObject("metadata");
+      if (metadata != null
+          && metadata.has("name")
+          && name.equals(metadata.get("name").getAsString())) {
+        JsonObject annotations = metadata.getAsJsonObject("annotations");
+        if (annotations != null) {
+          // the recorded Jenkins is bound to the recording Jenkins
+          annotations.remove(ALAUDA_DEVOPS_ANNOTATIONS_JENKINS_IDENTITY.get());
+        }
+        return toJSON(item);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the latest list of the replay time, the watch of the path will stream the events after
+   * the list.
+   */
+  private JsonObject listOf(String path, @CheckForNull String namespace) {
+    List<Record> records = lists.get(path);
+    long now = replayTime();
+    Record latest = records.get(0);
+    for (Record record : records) {
+      if (record.time <= now) {
+        latest = record;
+      }
+    }
+
+    List<Record> pathEvents = events.get(path);
+    if (pathEvents != null) {
+      int next = 0;
+      while (next < pathEvents.size() && pathEvents.get(next).time <= latest.time) {
+        next++;
+      }
+      cursors.merge(path, next, Math::max);
+    }
+
+    JsonObject list = gson.fromJson(latest.body, JsonObject.class);
+    if (namespace != null && list.has("items")) {
+      JsonArray items = new JsonArray();
+      for (JsonElement item : list.getAsJsonArray("items")) {
+        JsonObject metadata = item.getAsJsonObject().getAsJsonObject("metadata");
+        if (metadata != null
+            && metadata.has("namespace")
+            && namespace.equals(metadata.get("namespace").getAsString())) {
+          items.add(item);
+        }
+      }
+      list.add("items", items);
+    }
+    if (!list.has("items")) {
+      list.add("items", new JsonArray());
+    }
+    return list;
+  }
+
+  private String toJSON(JsonElement element) {
+    return gson.toJson(element);
+  }
+
+  private boolean allEventsReplayed() {
+    return events
+        .entrySet()
+        .stream()
+        .allMatch(entry -> cursors.getOrDefault(entry.getKey(), 0) >= entry.getValue().size());
+  }
+
+  private synchronized void reportIfFinished() {
+    if (!allEventsReplayed()) {
+      return;
+    }
+
+    Map<String, double[]> stats = reconcileStats();
+    double reconcileCount = stats.values().stream().mapToDouble(stat -> stat[0]).sum();
+    // wait until the controllers become idle
+    if (reconcileCount != lastReconcileCount) {
+      lastReconcileCount = reconcileCount;
+      return;
+    }
+
+    double seconds =
+        (System.currentTimeMillis() - startTime - REPORT_CHECK_INTERVAL_SECONDS * 1000) / 1000.0;
+    logger.info(
+        "[WatchTrafficReplayer] Replay finished in {}s at speed {}x",
+        String.format("%.1f", seconds),
+        speed);
+    stats.forEach(
+        (controller, stat) -> {
+          double[] before = baseline.getOrDefault(controller, new double[2]);
+          double count = stat[0] - before[0];
+          double sum = stat[1] - before[1];
+          logger.info(
+              "[WatchTrafficReplayer] Controller {}: {} reconciles, {} reconciles/s, average latency {} ms",
+              controller,
+              (long) count,
+              String.format("%.2f", count / Math.max(seconds, 0.001)),
+              String.format("%.2f", count == 0 ? 0 : sum / count * 1000));
+        });
+    reporter.shutdown();
+  }
+
+  /** @return count and sum of reconcile durations by controller */
+  private static Map<String, double[]> reconcileStats() {
+    Map<String, double[]> stats = new TreeMap<>();
+    Histogram histogram = Metrics.reconcileDurationHistogram;
+    for (Collector.MetricFamilySamples family : histogram.collect()) {
+      for (Collector.MetricFamilySamples.Sample sample : family.samples) {
+        int index;
+        if (sample.name.endsWith("_count")) {
+          index = 0;
+        } else if (sample.name.endsWith("_sum")) {
+          index = 1;
+        } else {
+          continue;
+        }
+        String controller = sample.labelValues.get(sample.labelNames.indexOf("controller_name"));
+        stats.computeIfAbsent(controller, c -> new double[2])[index] += sample.value;
+      }
+    }
+    return stats;
+  }
+
+  private static class Record {
+    private long time;
+    private String path;
+    private boolean watch;
+    private String body;
+  }
+
+  /** Streams the events of a path at their recorded time until the watch timeout. */
+  private class EventSource implements Source {
+    private final String path;
+    private final long deadline;
+    private volatile boolean closed;
+
+    EventSource(String path, long deadline) {
+      this.path = path;
+      this.deadline = deadline;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      List<Record> pathEvents = events.get(path);
+      while (!closed) {
+        int next = cursors.getOrDefault(path, 0);
+        long dueTime = Long.MAX_VALUE;
+        if (pathEvents != null && next < pathEvents.size()) {
+          dueTime = startTime + (long) (pathEvents.get(next).time / speed);
+        }
+
+        long now = System.currentTimeMillis();
+        if (dueTime <= now) {
+          cursors.put(path, next + 1);
+          byte[] line = (pathEvents.get(next).body + "\n").getBytes(StandardCharsets.UTF_8);
+          sink.write(line);
+          return line.length;
+        }
+        if (now >= deadline) {
+          return -1;
+        }
+
+        try {
+          Thread.sleep(Math.min(Math.min(dueTime, deadline) - now, 1000));
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Watch interrupted");
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
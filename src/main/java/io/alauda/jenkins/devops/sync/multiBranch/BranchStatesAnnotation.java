@@ -0,0 +1,147 @@
+package io.alauda.jenkins.devops.sync.multiBranch;
+
+import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+
+/**
+ * Compact format of the branch and PR annotations of a multi-branch PipelineConfig. All branches
+ * are encoded into one versioned JSON document instead of several annotations per branch, and the
+ * parameter definitions shared by branches are only stored once.
+ *
+ * <pre>
+ * {
+ *   "version": 1,
+ *   "params": [[...], [...]],
+ *   "branches": [
+ *     {"name": "master", "type": "branch", "stale": false, "url": "...", "params": 0},
+ *     {"name": "PR-1", "type": "pr", "stale": false, "pr": {...}, "params": 0}
+ *   ]
+ * }
+ * </pre>
+ */
+public class BranchStatesAnnotation {
+  public static final int VERSION = 1;
+
+  private final JSONArray params = new JSONArray();
+  private final Map<String, Integer> paramIndexes = new HashMap<>();
+  private final JSONArray branches = new JSONArray();
+
+  /** @return the annotation key that stores the compact document */
+  public static String annotationKey() {
+    return ResourceControllerManager.getControllerManager()
+        .getFormattedAnnotation("jenkins.branches")
+        .get();
+  }
+
+  public void addBranch(String name, boolean stale, String url, String paramsJSON) {
+    JSONObject branch = new JSONObject();
+    branch.put("name", name);
+    branch.put("type", "branch");
+    branch.put("stale", stale);
+    branch.put("url", url);
+    putParams(branch, paramsJSON);
+    branches.add(branch);
+  }
+
+  public void addPR(String name, boolean stale, String prJSON, String paramsJSON) {
+    JSONObject branch = new JSONObject();
+    branch.put("name", name);
+    branch.put("type", "pr");
+    branch.put("stale", stale);
+    branch.put("pr", JSONObject.fromObject(prJSON));
+    putParams(branch, paramsJSON);
+    branches.add(branch);
+  }
+
+  private void putParams(JSONObject branch, String paramsJSON) {
+    if (paramsJSON == null) {
+      return;
+    }
+
+    Integer index = paramIndexes.get(paramsJSON);
+    if (index == null) {
+      index = params.size();
+      params.add(JSONArray.fromObject(paramsJSON));
+      paramIndexes.put(paramsJSON, index);
+    }
+    branch.put("params", index);
+  }
+
+  public String toJSON() {
+    JSONObject document = new JSONObject();
+    document.put("version", VERSION);
+    document.put("params", params);
+    document.put("branches", branches);
+    return document.toString();
+  }
+
+  /**
+   * Find the parameters of a branch from the annotations of a PipelineConfig. The compact document
+   * is used if present, otherwise falls back to the parameters annotation of the branch written
+   * before the compact format.
+   *
+   * @param annotations annotations of the PipelineConfig
+   * @param documentKey key of the compact document, see {@link #annotationKey()}
+   * @param branchParamsKey key of the parameters annotation of the branch
+   * @param branchName name of the branch
+   * @return parameters in JSON format, null if not found
+   */
+  @CheckForNull
+  public static String findParams(
+      Map<String, String> annotations,
+      String documentKey,
+      String branchParamsKey,
+      String branchName) {
+    String document = annotations.get(documentKey);
+    if (document != null) {
+      return findParams(document, branchName);
+    }
+    return annotations.get(branchParamsKey);
+  }
+
+  /**
+   * Find the parameters of a branch from the compact document
+   *
+   * @param document the compact document
+   * @param branchName name of the branch
+   * @return parameters in JSON format, null if the branch or its parameters not found
+   */
+  @CheckForNull
+  public static String findParams(String document, String branchName) {
+    JSONObject json;
+    try {
+      json = JSONObject.fromObject(document);
+    } catch (JSONException e) {
+      return null;
+    }
+
+    if (json.optInt("version") != VERSION) {
+      return null;
+    }
+
+    JSONArray branchArray = json.optJSONArray("branches");
+    JSONArray paramArray = json.optJSONArray("params");
+    if (branchArray == null || paramArray == null) {
+      return null;
+    }
+
+    for (int i = 0; i < branchArray.size(); i++) {
+      JSONObject branch = branchArray.getJSONObject(i);
+      if (!branchName.equals(branch.optString("name")) || !branch.has("params")) {
+        continue;
+      }
+
+      int index = branch.getInt("params");
+      if (index < 0 || index >= paramArray.size()) {
+        return null;
+      }
+      return paramArray.getJSONArray(index).toString();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,89 @@
+package io.alauda.jenkins.devops.sync.scm;
+
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Parses the raw changelog of the last commit while git writing it. Only the header and message
+ * are kept, the changed files list after the message is skipped without buffering, so commits
+ * with huge files list won't take much memory.
+ */
+class LastChangeLogParser extends Writer {
+  private static final int MAX_LINE_LENGTH = 8 * 1024;
+  private static final int MAX_MESSAGE_LENGTH = 64 * 1024;
+
+  private final LastChangeData lastChangeData;
+  private final StringBuilder line = new StringBuilder();
+  private final StringBuilder message = new StringBuilder();
+  // the changed files list started, rest data will be ignored
+  private boolean done;
+  private boolean closed;
+
+  LastChangeLogParser(LastChangeData lastChangeData) {
+    this.lastChangeData = lastChangeData;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    for (int i = off; i < off + len && !done; i++) {
+      char c = cbuf[i];
+      if (c == '\n') {
+        parseLine();
+      } else if (c != '\r' && line.length() < MAX_LINE_LENGTH) {
+        line.append(c);
+      }
+    }
+  }
+
+  private void parseLine() {
+    String current = line.toString();
+    line.setLength(0);
+
+    if (current.startsWith("author ")) {
+      parseAuthor(current);
+    } else if (current.startsWith("commit ")) {
+      String[] commit = current.split(" ");
+      if (commit.length > 1) {
+        lastChangeData.setCommit(commit[1]);
+      }
+    } else if (current.startsWith(":")) {
+      // changed files are listed after the message
+      done = true;
+    } else if (!current.startsWith("tree ")
+        && !current.startsWith("parent ")
+        && !current.startsWith("committer ")
+        && message.length() < MAX_MESSAGE_LENGTH) {
+      message.append(current, 0, Math.min(current.length(), MAX_MESSAGE_LENGTH - message.length()));
+    }
+  }
+
+  /** Author line looks like 'author name &lt;email&gt; yyyy-MM-dd HH:mm:ss zone'. */
+  private void parseAuthor(String author) {
+    String[] authorData = author.split(" ");
+    if (authorData.length < 6) {
+      return;
+    }
+
+    // skip 'author' and the date
+    int emailIndex = authorData.length - 4;
+    lastChangeData.setAuthorEmail(authorData[emailIndex]);
+    lastChangeData.setAuthor(
+        String.join(" ", Arrays.asList(authorData).subList(1, emailIndex)));
+  }
+
+  @Override
+  public void flush() {}
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    if (!done && line.length() > 0) {
+      parseLine();
+    }
+    lastChangeData.setMessage(message.toString().trim());
+  }
+}
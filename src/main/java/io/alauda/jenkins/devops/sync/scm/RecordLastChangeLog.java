@@ -1,6 +1,5 @@
 package io.alauda.jenkins.devops.sync.scm;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.model.Run;
@@ -12,11 +11,8 @@ import hudson.plugins.git.Revision;
 import hudson.plugins.git.extensions.GitSCMExtension;
 import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
 import io.jsonwebtoken.lang.Collections;
-import java.io.*;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Collection;
-import java.util.List;
 import javax.annotation.Nonnull;
 import org.apache.commons.lang3.StringUtils;
 import org.jenkinsci.plugins.gitclient.GitClient;
@@ -37,7 +33,6 @@ public class RecordLastChangeLog extends GitSCMExtension {
   public RecordLastChangeLog() {}
 
   @Override
-  @SuppressFBWarnings(value = "DM_DEFAULT_ENCODING")
   public Revision decorateRevisionToBuild(
       GitSCM scm,
       Run<?, ?> build,
@@ -65,40 +60,18 @@ public class RecordLastChangeLog extends GitSCMExtension {
       lastChangeData.setBranch(branchName);
     }
 
-    ByteArrayOutputStream data = new ByteArrayOutputStream();
-    git.changelog().includes(rev.getSha1()).max(1).to(new PrintWriter(data)).execute();
-
-    StringBuilder msgBuf = new StringBuilder();
-    InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(data.toByteArray()));
-    BufferedReader rea = new BufferedReader(reader);
-    String line = null;
-    while ((line = rea.readLine()) != null) {
-      if (line.startsWith("author ")) {
-        List<String> authorData = new ArrayList<>(Arrays.asList(line.split(" ")));
-        if (authorData.size() >= 6) {
-          authorData.remove(authorData.size() - 1);
-          authorData.remove(authorData.size() - 1);
-          authorData.remove(authorData.size() - 1);
-          authorData.remove(0);
-
-          lastChangeData.setAuthorEmail(authorData.get(authorData.size() - 1));
-          authorData.remove(authorData.size() - 1);
-          lastChangeData.setAuthor(String.join(" ", authorData));
-        }
-      } else if (line.startsWith("commit ")) {
-        lastChangeData.setCommit(line.split(" ")[1]);
-      } else if (line.startsWith("tree ")
-          || line.startsWith("parent ")
-          || line.startsWith("committer ")
-          || line.startsWith(":100644 ")
-          || line.startsWith(":000000 ")) {
-      } else {
-        msgBuf.append(line);
-      }
+    LastChangeLogParser parser = new LastChangeLogParser(lastChangeData);
+    try {
+      git.changelog().includes(rev.getSha1()).max(1).to(parser).execute();
+    } finally {
+      parser.close();
     }
-    lastChangeData.setMessage(msgBuf.toString().trim());
 
-    logger.debug(data.toString());
+    logger.debug(
+        "Last change of {}, commit {}, author {}",
+        build.getFullDisplayName(),
+        lastChangeData.getCommit(),
+        lastChangeData.getAuthor());
     return super.decorateRevisionToBuild(scm, build, git, listener, marked, rev);
   }
 
@@ -5,28 +5,44 @@ import hudson.model.AsyncPeriodicWork;
 import hudson.model.Node;
 import hudson.model.TaskListener;
 import hudson.slaves.Cloud;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
 import java.io.IOException;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateEncodingException;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
-import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
 import org.csanchez.jenkins.plugins.kubernetes.KubernetesCloud;
 import org.csanchez.jenkins.plugins.kubernetes.KubernetesSlave;
 import org.csanchez.jenkins.plugins.kubernetes.PodTemplateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Removes agents whose pods failed. Failed agent pods are watched in the namespaces of our agents,
+ * the watches are limited by the pod labels of the cloud and the failed phase, so we won't list all
+ * pods in the cluster. This task ensures the watches are running and sweeps the failed pods once in
+ * a while in case of any events we missed. Watches of removed or reconfigured clouds and of
+ * namespaces without agents are closed.
+ */
 @Extension
 public class AgentCleaner extends AsyncPeriodicWork {
 
   private static final Logger logger = LoggerFactory.getLogger(AgentCleaner.class);
 
+  private static final String FAILED_PHASE = "Failed";
+  private static final long SWEEP_PERIOD = TimeUnit.HOURS.toMillis(1);
+
+  // watches by cloud name and namespace
+  private final Map<String, AgentWatch> watches = new ConcurrentHashMap<>();
+  private long lastSweepTime;
+
   public AgentCleaner() {
     super("AgentCleaner");
   }
@@ -35,74 +51,178 @@ public class AgentCleaner extends AsyncPeriodicWork {
   protected void execute(TaskListener listener) throws IOException, InterruptedException {
     logger.debug("Start to check and clean up agents");
 
+    boolean shouldSweep = System.currentTimeMillis() - lastSweepTime >= SWEEP_PERIOD;
+    Set<String> watchKeys = new HashSet<>();
     for (Cloud cloud : Jenkins.get().clouds) {
       if (cloud instanceof KubernetesCloud) {
         KubernetesCloud kubernetesCloud = ((KubernetesCloud) cloud);
         try {
-          checkAgentForCloud(kubernetesCloud);
+          Set<String> namespaces = agentNamespaces(kubernetesCloud);
+          namespaces.forEach(namespace -> watchKeys.add(watchKey(kubernetesCloud, namespace)));
+          watchFailedPods(kubernetesCloud, namespaces);
+          if (shouldSweep) {
+            sweepFailedPods(kubernetesCloud, namespaces);
+          }
         } catch (Exception e) {
           logger.warn("Failed to check agent for cloud {}, reason {}", cloud.name, e.getMessage());
         }
       }
     }
+
+    if (shouldSweep) {
+      lastSweepTime = System.currentTimeMillis();
+    }
+
+    // the cloud was removed or the namespace no longer hosts our agents
+    watches
+        .entrySet()
+        .removeIf(
+            entry -> {
+              if (watchKeys.contains(entry.getKey())) {
+                return false;
+              }
+              logger.debug("Stop watching failed agent pods {}", entry.getKey());
+              entry.getValue().watch.close();
+              return true;
+            });
   }
 
-  private void checkAgentForCloud(KubernetesCloud cloud) throws Exception {
-    List<Node> nodes = Jenkins.get().getNodes();
-    if (CollectionUtils.isEmpty(nodes)) {
-      return;
+  private static String watchKey(KubernetesCloud cloud, String namespace) {
+    return cloud.name + "/" + namespace;
+  }
+
+  private Set<String> agentNamespaces(KubernetesCloud cloud) {
+    Set<String> namespaces = new HashSet<>();
+    if (StringUtils.isNotEmpty(cloud.getNamespace())) {
+      namespaces.add(cloud.getNamespace());
     }
 
-    Map<String, String> failedPods =
-        cloud
-            .connect()
-            .pods()
-            .list()
-            .getItems()
-            .stream()
-            .filter(pod -> pod.getStatus().getPhase().equals("Failed"))
-            .collect(
-                Collectors.toMap(
-                    pod -> pod.getMetadata().getNamespace() + "/" + pod.getMetadata().getName(),
-                    pod -> ""));
-
-    nodes
+    Jenkins.get()
+        .getNodes()
         .stream()
-        // only process KubernetesSlave
         .filter(node -> node instanceof KubernetesSlave)
         .map(node -> ((KubernetesSlave) node))
-        // proceed if we can find correspond pod in failed pods
-        .filter(
-            slave ->
-                failedPods.containsKey(
-                    slave.getNamespace()
-                        + "/"
-                        + PodTemplateUtils.substituteEnv(slave.getNodeName())))
-        .forEach(
-            slave -> {
-              try {
-                logger.info("Will remove agent {} as the pod is failed", slave.getNodeName());
-                Jenkins.get().removeNode(slave);
-              } catch (IOException e) {
-                logger.warn("Failed to remove node {}", slave.getNodeName());
-              }
+        .filter(slave -> cloud.name.equals(slave.getCloudName()))
+        .map(KubernetesSlave::getNamespace)
+        .filter(StringUtils::isNotEmpty)
+        .forEach(namespaces::add);
+    return namespaces;
+  }
 
-              try {
-                String podName = PodTemplateUtils.substituteEnv(slave.getNodeName());
-                logger.info("Will delete the pod {}", podName);
-                cloud.connect().pods().inNamespace(slave.getNamespace()).withName(podName).delete();
-              } catch (IOException
-                  | CertificateEncodingException
-                  | NoSuchAlgorithmException
-                  | KeyStoreException
-                  | UnrecoverableKeyException e) {
-                logger.warn("Failed to delete pod {}", slave.getNodeName());
-              }
-            });
+  private void watchFailedPods(KubernetesCloud cloud, Set<String> namespaces) throws Exception {
+    Map<String, String> podLabels = cloud.getPodLabelsMap();
+    for (String namespace : namespaces) {
+      String key = watchKey(cloud, namespace);
+      AgentWatch existing = watches.get(key);
+      if (existing != null) {
+        // clouds are replaced by new instances when reconfigured
+        if (existing.cloud == cloud && existing.podLabels.equals(podLabels)) {
+          continue;
+        }
+        logger.debug("Cloud of failed agent pods watch {} was reconfigured, will recreate it", key);
+        watches.remove(key, existing);
+        existing.watch.close();
+      }
+
+      logger.debug("Start to watch failed agent pods in namespace {} of cloud {}", namespace, key);
+      AgentWatch agentWatch = new AgentWatch(cloud, podLabels);
+      agentWatch.watch =
+          cloud
+              .connect()
+              .pods()
+              .inNamespace(namespace)
+              .withLabels(podLabels)
+              .withField("status.phase", FAILED_PHASE)
+              .watch(
+                  new Watcher<Pod>() {
+                    @Override
+                    public void eventReceived(Action action, Pod pod) {
+                      if (action == Action.DELETED
+                          || pod.getStatus() == null
+                          || !FAILED_PHASE.equals(pod.getStatus().getPhase())) {
+                        return;
+                      }
+                      cleanUp(cloud, namespace, pod.getMetadata().getName());
+                    }
+
+                    @Override
+                    public void onClose(KubernetesClientException cause) {
+                      // the watch will be recreated in next period
+                      watches.remove(key, agentWatch);
+                      if (cause != null) {
+                        logger.debug(
+                            "Watch of failed agent pods {} closed, reason {}",
+                            key,
+                            cause.getMessage());
+                      }
+                    }
+                  });
+      watches.put(key, agentWatch);
+    }
+  }
+
+  private void sweepFailedPods(KubernetesCloud cloud, Set<String> namespaces) throws Exception {
+    for (String namespace : namespaces) {
+      Set<String> failedPods =
+          cloud
+              .connect()
+              .pods()
+              .inNamespace(namespace)
+              .withLabels(cloud.getPodLabelsMap())
+              .withField("status.phase", FAILED_PHASE)
+              .list()
+              .getItems()
+              .stream()
+              .map(pod -> pod.getMetadata().getName())
+              .collect(Collectors.toSet());
+
+      failedPods.forEach(podName -> cleanUp(cloud, namespace, podName));
+    }
+  }
+
+  private void cleanUp(KubernetesCloud cloud, String namespace, String podName) {
+    // the pod might belong to other Jenkins that shares the namespace, only clean up our agents
+    for (Node node : Jenkins.get().getNodes()) {
+      if (!(node instanceof KubernetesSlave)) {
+        continue;
+      }
+
+      KubernetesSlave slave = (KubernetesSlave) node;
+      if (!namespace.equals(slave.getNamespace())
+          || !podName.equals(PodTemplateUtils.substituteEnv(slave.getNodeName()))) {
+        continue;
+      }
+
+      try {
+        logger.info("Will remove agent {} as the pod is failed", slave.getNodeName());
+        Jenkins.get().removeNode(slave);
+      } catch (IOException e) {
+        logger.warn("Failed to remove node {}", slave.getNodeName());
+      }
+
+      try {
+        logger.info("Will delete the pod {}", podName);
+        cloud.connect().pods().inNamespace(namespace).withName(podName).delete();
+      } catch (Exception e) {
+        logger.warn("Failed to delete pod {}", slave.getNodeName());
+      }
+      return;
+    }
   }
 
   @Override
   public long getRecurrencePeriod() {
     return TimeUnit.MINUTES.toMillis(5);
   }
+
+  private static class AgentWatch {
+    private final KubernetesCloud cloud;
+    private final Map<String, String> podLabels;
+    private volatile Watch watch;
+
+    AgentWatch(KubernetesCloud cloud, Map<String, String> podLabels) {
+      this.cloud = cloud;
+      this.podLabels = podLabels;
+    }
+  }
 }
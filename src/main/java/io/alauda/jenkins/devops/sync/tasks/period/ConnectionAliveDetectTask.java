@@ -5,23 +5,26 @@ import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.model.AsyncPeriodicWork;
 import hudson.model.TaskListener;
+import io.alauda.jenkins.devops.sync.controller.ResourceController;
 import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
-import io.kubernetes.client.openapi.ApiException;
+import io.alauda.jenkins.devops.sync.monitor.WatchProgressInterceptor;
 import java.io.IOException;
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Restarts the controllers whose watch connections stalled. Watch progress is tracked by {@link
+ * WatchProgressInterceptor} for all namespaces, so no list requests are sent to apiserver to find
+ * out whether there are resources we should have received.
+ */
 @Extension
 public class ConnectionAliveDetectTask extends AsyncPeriodicWork {
   private static final Logger logger = LoggerFactory.getLogger(ConnectionAliveDetectTask.class);
 
-  private ConcurrentHashMap<HeartbeatResourceDetector, AtomicInteger> heartbeatLostCount =
+  // time of the last restart of each controller, watches opened before it are ignored
+  private ConcurrentHashMap<HeartbeatResourceDetector, Long> restartTimes =
       new ConcurrentHashMap<>();
 
   public ConnectionAliveDetectTask() {
@@ -35,79 +38,33 @@ public class ConnectionAliveDetectTask extends AsyncPeriodicWork {
       return;
     }
 
-    LocalDateTime now = LocalDateTime.now();
+    for (HeartbeatResourceDetector detector : HeartbeatResourceDetector.all()) {
+      logger.debug(
+          "Starting to check if the watch connection of resource {} is alive",
+          detector.resourceName());
 
-    HeartbeatResourceDetector.all()
-        .forEach(
-            detector -> {
-              logger.debug(
-                  "Starting to check if the watch connection of resource {} is alive",
-                  detector.resourceName());
-              heartbeatLostCount.putIfAbsent(detector, new AtomicInteger(0));
-
-              LocalDateTime lastEventComingTime = detector.lastEventComingTime();
-              // controller might not be initialized, or no resource exist in k8s so that we cannot
-              // receive event
-              if (lastEventComingTime == null) {
-                try {
-                  // if there has resource exists but we didn't receive any event, the watch
-                  // connection might be broken
-                  if (detector.hasResourceExists()) {
-                    int count = heartbeatLostCount.get(detector).incrementAndGet();
-                    logger.warn(
-                        "The watch connection of resource {} seems broken, retry count {}",
-                        detector.resourceName(),
-                        count);
-                  } else {
-                    logger.debug(
-                        "There are no resource {} exists in k8s, will skip this check for it",
-                        detector.resourceName());
-                  }
-                } catch (ApiException e) {
-                  logger.warn(
-                      "Unable to check if resource {} exists in k8s, will skip this check for it, reason: {}",
-                      detector.resourceName(),
-                      e);
-                }
-                return;
-              }
-
-              Duration elapsed = Duration.between(lastEventComingTime, now);
-
-              // the apiserver will use heartbeat to update resource per 30 seconds, so if we didn't
-              // receive an update event in last 1 minute,
-              // the watch connection might broken
-              if (!elapsed.minus(Duration.ofMinutes(1)).isNegative()) {
-                int count = heartbeatLostCount.get(detector).incrementAndGet();
-                logger.warn(
-                    "The watch connection of resource {} seems broken, "
-                        + "last event coming at {}, time since last event coming {}s, retry count {}",
-                    detector.resourceName(),
-                    lastEventComingTime,
-                    elapsed.getSeconds(),
-                    count);
-              } else {
-                heartbeatLostCount.get(detector).set(0);
-              }
-            });
-
-    boolean needToReconnect = false;
-    for (Map.Entry<HeartbeatResourceDetector, AtomicInteger> entry :
-        heartbeatLostCount.entrySet()) {
-      AtomicInteger count = entry.getValue();
-      // we only retry 3 times
-      if (count.get() > 3) {
-        logger.warn(
-            "The watch connection of resource {} is broken, will try to reestablish connection",
-            entry.getKey().resourceName());
-        needToReconnect = true;
-        break;
+      String stalledWatch =
+          WatchProgressInterceptor.findStalledWatch(
+              detector.watchedResource(), restartTimes.getOrDefault(detector, 0L));
+      if (stalledWatch == null) {
+        continue;
       }
-    }
 
-    if (needToReconnect) {
-      heartbeatLostCount.clear();
-      ResourceControllerManager.getControllerManager().restart();
+      logger.warn(
+          "The watch connection {} of resource {} is broken, will try to reestablish connection",
+          stalledWatch,
+          detector.resourceName());
+      // only restart the broken one, so that other resources won't be relisted
+      if (detector instanceof ResourceController
+          && ResourceControllerManager.getControllerManager()
+              .restartController((ResourceController) detector)) {
+        restartTimes.put(detector, System.currentTimeMillis());
+      } else {
+        long now = System.currentTimeMillis();
+        HeartbeatResourceDetector.all().forEach(restarted -> restartTimes.put(restarted, now));
+        ResourceControllerManager.getControllerManager().restart();
+        return;
+      }
     }
   }
 
@@ -116,13 +73,12 @@ public class ConnectionAliveDetectTask extends AsyncPeriodicWork {
     return TimeUnit.MINUTES.toMillis(1);
   }
 
-  /** Resource that has heartbeat task to update in server-end */
+  /** Resource whose watch connection should be kept alive */
   public interface HeartbeatResourceDetector extends ExtensionPoint {
-    LocalDateTime lastEventComingTime();
-
     String resourceName();
 
-    boolean hasResourceExists() throws ApiException;
+    /** @return resource in the path of the watch requests, like pipelineconfigs */
+    String watchedResource();
 
     static ExtensionList<HeartbeatResourceDetector> all() {
       return ExtensionList.lookup(HeartbeatResourceDetector.class);
@@ -9,10 +9,10 @@ import hudson.security.ACLContext;
 import io.alauda.jenkins.devops.sync.AlaudaFolderProperty;
 import io.alauda.jenkins.devops.sync.MultiBranchProperty;
 import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
+import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.ResourceClient;
 import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
-import io.alauda.jenkins.devops.sync.exception.ExceptionUtils;
-import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.informer.cache.Lister;
 import io.kubernetes.client.openapi.models.V1Namespace;
 import java.io.IOException;
 import java.util.Collections;
@@ -73,6 +73,27 @@ public class EmptyFolderCheckTask extends AsyncPeriodicWork {
       return Collections.emptyList();
     }
 
+    // namespace informer is used to check if the namespace of folder still exists, if it has not
+    // synced, we can only delete the folders marked as dirty
+    ResourceClient<V1Namespace> namespaceClient = Clients.get(V1Namespace.class);
+    Lister<V1Namespace> namespaceLister =
+        namespaceClient != null && namespaceClient.informer().hasSynced()
+            ? namespaceClient.lister()
+            : null;
+
+    return findFoldersShouldDelete(folders, namespaceLister);
+  }
+
+  /**
+   * Find folders marked as dirty or whose namespace is not in the cache, folders contain items
+   * created by user are kept.
+   *
+   * @param folders folders in Jenkins
+   * @param namespaceLister lister of namespaces, null if the namespace informer has not synced
+   * @return folders should be deleted
+   */
+  static List<Folder> findFoldersShouldDelete(
+      List<Folder> folders, Lister<V1Namespace> namespaceLister) {
     return folders
         .stream()
         .filter(
@@ -88,7 +109,7 @@ public class EmptyFolderCheckTask extends AsyncPeriodicWork {
                                 property instanceof AlaudaFolderProperty
                                     && ((AlaudaFolderProperty) property).isDirty())
                     // we should delete folders haven't match namespace
-                    || noMatchedNamespaceInK8s(folder.getName()))
+                    || noMatchedNamespaceInK8s(namespaceLister, folder.getName()))
         // if folder contains item that created by user, we should not delete this folder
         .filter(
             folder ->
@@ -111,16 +132,12 @@ public class EmptyFolderCheckTask extends AsyncPeriodicWork {
         .collect(Collectors.toList());
   }
 
-  private boolean noMatchedNamespaceInK8s(String target) {
-    CoreV1Api api = new CoreV1Api();
-    V1Namespace ns;
-    try {
-      ns = api.readNamespace(target, null, null, null);
-
-      return ns == null;
-    } catch (ApiException e) {
-      return ExceptionUtils.isResourceNotFoundException(e);
+  private static boolean noMatchedNamespaceInK8s(
+      Lister<V1Namespace> namespaceLister, String target) {
+    if (namespaceLister == null) {
+      return false;
     }
+    return namespaceLister.get(target) == null;
   }
 
   @Override
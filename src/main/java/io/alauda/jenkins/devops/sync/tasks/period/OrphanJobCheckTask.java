@@ -3,28 +3,35 @@ package io.alauda.jenkins.devops.sync.tasks.period;
 import com.cloudbees.hudson.plugins.folder.Folder;
 import hudson.Extension;
 import hudson.model.AsyncPeriodicWork;
-import hudson.model.Item;
 import hudson.model.TaskListener;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
-import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
 import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
-import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
 import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.JenkinsClient;
+import io.alauda.jenkins.devops.sync.client.ResourceClient;
+import io.alauda.jenkins.devops.sync.controller.NamespaceShards;
 import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
-import io.alauda.jenkins.devops.sync.exception.ExceptionUtils;
 import io.alauda.jenkins.devops.sync.function.AlaudaPipelineFilter;
+import io.alauda.jenkins.devops.sync.monitor.Metrics;
+import io.alauda.jenkins.devops.sync.util.NamespaceName;
 import io.alauda.jenkins.devops.sync.util.WorkflowJobUtils;
-import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.informer.cache.Lister;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Orphan jobs are removed by PipelineConfigController when PipelineConfigs are deleted. This task
+ * is a consistency sweep for the deletions we missed, e.g. PipelineConfigs deleted while Jenkins
+ * was down. It only reads the informer cache, no request will be sent to apiserver.
+ */
 @Extension
 public class OrphanJobCheckTask extends AsyncPeriodicWork {
 
@@ -34,12 +41,9 @@ public class OrphanJobCheckTask extends AsyncPeriodicWork {
     super("OrphanJobCheckTask");
   }
 
-  private List<Item> orphanList = new ArrayList<>();
-
   @Override
   protected void execute(TaskListener listener) throws IOException, InterruptedException {
     LOGGER.info("Start to scan orphan items.");
-    orphanList.clear();
 
     ResourceControllerManager resourceControllerManager =
         ResourceControllerManager.getControllerManager();
@@ -50,78 +54,90 @@ public class OrphanJobCheckTask extends AsyncPeriodicWork {
       return;
     }
 
-    try (ACLContext ignore = ACL.as(ACL.SYSTEM)) {
-      scanOrphanItems();
+    NamespaceShards shards = NamespaceShards.getInstance();
+    // we cannot know which namespaces are ours without members, the cache might be empty
+    if (shards.isEnabled() && shards.getMembers().isEmpty()) {
+      LOGGER.info("No shard members found, will skip this Orphan Job check");
+      return;
     }
-  }
 
-  private void scanOrphanItems() {
-    Jenkins jenkins = Jenkins.getInstance();
-    List<Folder> folders = jenkins.getItems(Folder.class);
-
-    folders.forEach(
-        folder ->
-            folder
-                .getItems()
-                .stream()
-                .filter(new AlaudaPipelineFilter())
-                .forEach(
-                    item -> {
-                      WorkflowJobProperty pro =
-                          WorkflowJobUtils.getAlaudaProperty((WorkflowJob) item);
-
-                      String ns = pro.getNamespace();
-                      String name = pro.getName();
+    ResourceClient<V1alpha1PipelineConfig> client = Clients.get(V1alpha1PipelineConfig.class);
+    // an unsynced cache would make every job looks like orphan
+    if (client == null || !client.informer().hasSynced()) {
+      LOGGER.info("PipelineConfig informer has not synced yet, will skip this Orphan Job check");
+      return;
+    }
 
-                      V1alpha1PipelineConfig pc =
-                          Clients.get(V1alpha1PipelineConfig.class)
-                              .lister()
-                              .namespace(ns)
-                              .get(name);
-                      if (pc == null) {
-                        DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api();
-                        V1alpha1PipelineConfig newer;
-                        try {
-                          newer = api.readNamespacedPipelineConfig(name, ns, null, null, null);
+    try (ACLContext ignore = ACL.as(ACL.SYSTEM)) {
+      scanOrphanItems(client.lister(), shards::isOwned);
+    }
+  }
 
-                          if (newer == null) {
-                            LOGGER.info(
-                                "Unable to get PipelineConfig '{}/{}', will delete it", ns, name);
-                            orphanList.add(item);
-                          }
-                        } catch (ApiException e) {
-                          if (ExceptionUtils.isResourceNotFoundException(e)) {
-                            LOGGER.info(
-                                "Unable to get newer PipelineConfig '{}/{}' from apiserver, will delete it, reason: {}",
-                                ns,
-                                name,
-                                e.getMessage());
-                            orphanList.add(item);
-                          } else {
-                            LOGGER.info(
-                                "Unable to check if PipelineConfig '{}/{}' exists, reason: {}",
-                                ns,
-                                name,
-                                e.getMessage());
-                          }
-                        }
-                      }
-                    }));
+  private void scanOrphanItems(Lister<V1alpha1PipelineConfig> lister, Predicate<String> isOwned)
+      throws InterruptedException {
+    List<NamespaceName> jobs =
+        Jenkins.get()
+            .getItems(Folder.class)
+            .stream()
+            .flatMap(folder -> folder.getItems().stream())
+            .filter(new AlaudaPipelineFilter())
+            .map(item -> WorkflowJobUtils.getAlaudaProperty((WorkflowJob) item))
+            .map(pro -> new NamespaceName(pro.getNamespace(), pro.getName()))
+            .collect(Collectors.toList());
+    List<NamespaceName> orphans = findOrphans(jobs, lister, isOwned);
+
+    LOGGER.info("Start to remove orphan items, total numbers {}.", orphans.size());
+    JenkinsClient jenkinsClient = JenkinsClient.getInstance();
+    for (NamespaceName orphan : orphans) {
+      try {
+        if (jenkinsClient.deleteJob(orphan)) {
+          Metrics.orphanJobsRemovedCounter.labels("sweep").inc();
+          LOGGER.info(
+              "Remove orphan item of PipelineConfig '{}/{}'.",
+              orphan.getNamespace(),
+              orphan.getName());
+        }
+      } catch (IOException e) {
+        LOGGER.warn(
+            "Failed to remove orphan item of PipelineConfig '{}/{}', reason {}",
+            orphan.getNamespace(),
+            orphan.getName(),
+            e.getMessage());
+      }
+    }
+  }
 
-    LOGGER.info("Start to remove orphan items, total numbers {}.", orphanList.size());
-    orphanList.forEach(
-        item -> {
-          try {
-            item.delete();
+  /**
+   * Find jobs whose PipelineConfig is not in the cache. Jobs in namespaces owned by other masters
+   * are not in our cache, they are left to their owners.
+   *
+   * @param jobs namespace and name of jobs
+   * @param lister lister of PipelineConfig cache
+   * @param isOwned whether the namespace is owned by this master
+   * @return orphan jobs
+   */
+  static List<NamespaceName> findOrphans(
+      List<NamespaceName> jobs,
+      Lister<V1alpha1PipelineConfig> lister,
+      Predicate<String> isOwned) {
+    return jobs.stream()
+        .filter(namespaceName -> isOwned.test(namespaceName.getNamespace()))
+        .filter(namespaceName -> isOrphan(lister, namespaceName))
+        .collect(Collectors.toList());
+  }
 
-            LOGGER.info("Remove orphan item [{}].", item.getFullName());
-          } catch (IOException e) {
-            e.printStackTrace();
-          } catch (InterruptedException e) {
-            e.printStackTrace();
-            Thread.currentThread().interrupt();
-          }
-        });
+  private static boolean isOrphan(
+      Lister<V1alpha1PipelineConfig> lister, NamespaceName namespaceName) {
+    V1alpha1PipelineConfig pc =
+        lister.namespace(namespaceName.getNamespace()).get(namespaceName.getName());
+    if (pc == null) {
+      LOGGER.info(
+          "Unable to find PipelineConfig '{}/{}' in cache, will delete it",
+          namespaceName.getNamespace(),
+          namespaceName.getName());
+      return true;
+    }
+    return false;
   }
 
   @Override
@@ -0,0 +1,38 @@
+package io.alauda.jenkins.devops.sync.util;
+
+import javax.annotation.Nonnull;
+import org.jenkinsci.plugins.workflow.actions.ThreadNameAction;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+
+public final class FlowNodeUtils {
+  private static final String STAGE_FUNCTION_NAME = "stage";
+
+  private FlowNodeUtils() {}
+
+  /**
+   * Whether the node starts a stage or a parallel branch. A stage is started by the start node of
+   * the stage step, a parallel branch is started by the body start node that has a thread name.
+   * Ids of these nodes are the node ids used by Blue Ocean.
+   *
+   * <p>The label of stage is added after its start node became the new head, so stages are detected
+   * by the step descriptor, which is known once the node created.
+   *
+   * @param node flow node to check
+   * @return true if the node starts a stage or a parallel branch
+   */
+  public static boolean isStageOrBranchStart(@Nonnull FlowNode node) {
+    if (!(node instanceof StepStartNode)) {
+      return false;
+    }
+
+    StepStartNode startNode = (StepStartNode) node;
+    if (startNode.isBody()) {
+      return startNode.getAction(ThreadNameAction.class) != null;
+    }
+
+    StepDescriptor descriptor = startNode.getDescriptor();
+    return descriptor != null && STAGE_FUNCTION_NAME.equals(descriptor.getFunctionName());
+  }
+}
@@ -9,11 +9,18 @@ import hudson.util.VersionNumber;
 import io.alauda.devops.java.client.models.*;
 import io.alauda.jenkins.devops.sync.constants.Constants;
 import io.alauda.jenkins.devops.sync.constants.ErrorMessages;
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Logger;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
@@ -129,4 +136,48 @@ public abstract class PipelineConfigUtils {
       pipelineConfig.getSpec().setDisabled(disabled);
     }
   }
+
+  /**
+   * Generate a hash of the content that the Jenkins job is built from. Besides the spec, the labels
+   * and the context annotations, the conditions and the CodeRepository are also used by the
+   * converters. The Synced condition and the times of conditions are excluded, they are changed by
+   * every sync.
+   *
+   * @param pipelineConfig PipelineConfig
+   * @param contextAnnotation context annotations as the JSON format
+   * @param codeRepositoryResourceVersion resourceVersion of the CodeRepository used by the
+   *     PipelineConfig, null if no CodeRepository used
+   * @return SHA-256 hash of PipelineConfig content in hex
+   */
+  public static String specHash(
+      @Nonnull V1alpha1PipelineConfig pipelineConfig,
+      @Nonnull String contextAnnotation,
+      @CheckForNull String codeRepositoryResourceVersion) {
+    V1ObjectMeta meta = pipelineConfig.getMetadata();
+    Map<String, Object> content = new TreeMap<>();
+    content.put("uid", meta.getUid());
+    content.put("labels", meta.getLabels() == null ? null : new TreeMap<>(meta.getLabels()));
+    content.put("context", new TreeMap<>(JSONObject.fromObject(contextAnnotation)));
+    content.put("spec", pipelineConfig.getSpec());
+    content.put("codeRepository", codeRepositoryResourceVersion);
+
+    List<Map<String, String>> conditions = new ArrayList<>();
+    if (pipelineConfig.getStatus() != null && pipelineConfig.getStatus().getConditions() != null) {
+      for (V1alpha1Condition condition : pipelineConfig.getStatus().getConditions()) {
+        if (Constants.PIPELINE_CONFIG_CONDITION_TYPE_SYNCED.equals(condition.getType())) {
+          continue;
+        }
+
+        Map<String, String> item = new TreeMap<>();
+        item.put("type", condition.getType());
+        item.put("status", condition.getStatus());
+        item.put("reason", condition.getReason());
+        item.put("message", condition.getMessage());
+        conditions.add(item);
+      }
+    }
+    content.put("conditions", conditions);
+
+    return DigestUtils.sha256Hex(new JSON().serialize(content));
+  }
 }
@@ -10,6 +10,7 @@ import io.alauda.jenkins.devops.sync.PipelineConfigToJobMapper;
 import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.controller.ResourceControllerManager;
+import io.alauda.jenkins.devops.sync.multiBranch.BranchStatesAnnotation;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -66,9 +67,13 @@ public final class WorkflowJobUtils {
         ResourceControllerManager.getControllerManager().getFormattedAnnotation("jenkins.").get()
             + annotationKeySpec(branchName)
             + ".params";
+    String paramsInAnnotation =
+        BranchStatesAnnotation.findParams(
+            annotations, BranchStatesAnnotation.annotationKey(), paramKey, branchName);
+
     List<V1alpha1PipelineParameter> pipelineParameters =
         PipelineConfigToJobMapper.getPipelineParameter(item);
-    return !StringUtils.equals(toJSON(pipelineParameters), annotations.get(paramKey));
+    return !StringUtils.equals(toJSON(pipelineParameters), paramsInAnnotation);
   }
 
   private static String toJSON(Object obj) {
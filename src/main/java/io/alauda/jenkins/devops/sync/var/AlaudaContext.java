@@ -1,6 +1,5 @@
 package io.alauda.jenkins.devops.sync.var;
 
-import io.alauda.jenkins.devops.sync.constants.Annotations;
 import java.util.Map;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
 
@@ -11,7 +10,8 @@ public class AlaudaContext {
   private Map<String, String> data;
   private Boolean issupport;
 
-  public AlaudaContext(String name, String namespace, Map data, Boolean issupport) {
+  public AlaudaContext(
+      String name, String namespace, Map<String, String> data, Boolean issupport) {
     this.name = name;
     this.namespace = namespace;
     this.data = data;
@@ -31,12 +31,8 @@ public class AlaudaContext {
   @Whitelisted
   public String getItem(String key) {
     if (data != null) {
-      String result = data.get(Annotations.ALAUDA_PIPELINE_CONTEXT.get().toString() + key);
-      if (result != null) {
-        return result;
-      } else {
-        return "";
-      }
+      // keys of data are already stripped of the context annotation prefix
+      return data.getOrDefault(key, "");
     }
     return "";
   }
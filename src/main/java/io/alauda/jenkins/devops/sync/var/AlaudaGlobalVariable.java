@@ -7,9 +7,7 @@ import hudson.model.Run;
 import io.alauda.jenkins.devops.sync.AlaudaJobProperty;
 import io.alauda.jenkins.devops.sync.MultiBranchProperty;
 import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
-import java.util.Map;
 import javax.annotation.Nonnull;
-import net.sf.json.JSONObject;
 import org.jenkinsci.plugins.workflow.cps.CpsScript;
 import org.jenkinsci.plugins.workflow.cps.GlobalVariable;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
@@ -41,12 +39,7 @@ public class AlaudaGlobalVariable extends GlobalVariable {
       }
       String namespace = property.getNamespace();
       String name = property.getName();
-      String contextAnnotation = property.getContextAnnotation();
-      Map data = null;
-      if (contextAnnotation != null) {
-        data = JSONObject.fromObject(contextAnnotation);
-      }
-      return new AlaudaContext(name, namespace, data, true);
+      return new AlaudaContext(name, namespace, property.getContextItems(), true);
     }
     throw new IllegalStateException("not instance of WorkflowJob");
   }
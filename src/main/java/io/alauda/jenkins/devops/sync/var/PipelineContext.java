@@ -1,19 +1,23 @@
 package io.alauda.jenkins.devops.sync.var;
 
-import static io.alauda.jenkins.devops.sync.listener.PipelineSyncExecutor.mountActionsPipeline;
+import static io.alauda.jenkins.devops.sync.listener.PipelineSyncExecutor.toInformationItems;
 
 import com.cloudbees.groovy.cps.NonCPS;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.alauda.devops.java.client.models.V1alpha1Pipeline;
-import io.alauda.devops.java.client.utils.DeepCopyUtils;
 import io.alauda.jenkins.devops.sync.JenkinsPipelineCause;
 import io.alauda.jenkins.devops.sync.action.PipelineAction;
 import io.alauda.jenkins.devops.sync.client.Clients;
 import io.alauda.jenkins.devops.sync.util.PipelineUtils;
 import io.kubernetes.client.openapi.JSON;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.slf4j.Logger;
@@ -21,6 +25,12 @@ import org.slf4j.LoggerFactory;
 
 public class PipelineContext {
   private static final Logger logger = LoggerFactory.getLogger(PipelineContext.class);
+
+  // a new PipelineContext will be created every time the global variable is evaluated, so we
+  // cache the views per run. The run is weakly referenced, views will be dropped with the run
+  private static final Cache<WorkflowRun, PipelineView> views =
+      CacheBuilder.newBuilder().weakKeys().build();
+
   private WorkflowRun run;
 
   // pipeline namespace/name
@@ -34,16 +44,13 @@ public class PipelineContext {
     this.name = cause.getName();
   }
 
+  /**
+   * Append an item to the information of Pipeline. Items are kept in memory and persisted when
+   * {@link #flush()} called, a stage started or the build completed.
+   */
   @Whitelisted
-  public synchronized void appendInfo(String name, Object value, String type, String desc) {
-    PipelineAction action = run.getAction(PipelineAction.class);
-    if (action == null) {
-      action = new PipelineAction();
-    }
-
-    List<PipelineAction.Information> info = action.getItems();
-    info.add(new PipelineAction.Information(name, value, type, desc));
-    run.addOrReplaceAction(action);
+  public void appendInfo(String name, Object value, String type, String desc) {
+    getOrCreateAction().addItem(new PipelineAction.Information(name, value, type, desc));
   }
 
   @Whitelisted
@@ -61,8 +68,7 @@ public class PipelineContext {
    */
   @Whitelisted
   public void createOrUpdateInfo(String name, Object value, String type, String desc) {
-    deleteInfo(name, type);
-    appendInfo(name, value, type, desc);
+    getOrCreateAction().putItem(new PipelineAction.Information(name, value, type, desc));
   }
 
   @Whitelisted
@@ -70,33 +76,154 @@ public class PipelineContext {
     this.createOrUpdateInfo(name, value, type, "");
   }
 
-  public synchronized void deleteInfo(String name, String type) {
+  public void deleteInfo(String name, String type) {
     PipelineAction action = run.getAction(PipelineAction.class);
     if (action == null) {
       return;
     }
-    List<PipelineAction.Information> list = action.getItems();
-    for (int index = 0; index < list.size(); index++) {
-      PipelineAction.Information item = list.get(index);
-      if (item.getName().equals(name) && item.getType().equals(type)) {
-        list.remove(item);
+    action.removeItems(name, type);
+  }
+
+  /** Persist the information items that haven't been persisted. */
+  @Whitelisted
+  public void flush() {
+    flush(run);
+  }
+
+  /**
+   * Persist the information items of the run if they were modified
+   *
+   * @param run the run to persist
+   */
+  public static void flush(WorkflowRun run) {
+    PipelineAction action = run.getAction(PipelineAction.class);
+    if (action == null || !action.isDirty()) {
+      return;
+    }
+
+    action.clearDirty();
+    try {
+      run.save();
+    } catch (IOException e) {
+      logger.warn(
+          "Failed to persist information items of run {}, reason {}",
+          run.getFullDisplayName(),
+          e.getMessage());
+    }
+  }
+
+  private PipelineAction getOrCreateAction() {
+    synchronized (PipelineContext.class) {
+      PipelineAction action = run.getAction(PipelineAction.class);
+      if (action == null) {
+        action = new PipelineAction();
+        run.addAction(action);
       }
+      return action;
     }
-    run.addOrReplaceAction(action);
   }
 
+  /**
+   * Get the Pipeline with the information items recorded by this run. Views are cached, and only
+   * rebuilt when the Pipeline or the items changed.
+   */
   @NonCPS
   @Whitelisted
-  public synchronized Map<String, Object> getData() {
+  public Map<String, Object> getData() {
     Map<String, Object> data = new HashMap<>();
+    PipelineView view = getView();
+    if (view != null) {
+      // every caller gets its own copy, so that scripts cannot modify the cached view
+      data.put("pipeline", JSONObject.fromObject(view.serialized));
+    }
+    return data;
+  }
+
+  /**
+   * Get a field of the Pipeline, e.g. <code>status.phase</code> or <code>metadata.annotations
+   * </code>. Cheaper than {@link #getData()} when scripts only need a part of the Pipeline.
+   *
+   * @param path dot separated path of the field
+   * @return value of the field, null if the Pipeline or the field not exists
+   */
+  @NonCPS
+  @Whitelisted
+  public Object getData(String path) {
+    PipelineView view = getView();
+    if (view == null || StringUtils.isEmpty(path)) {
+      return null;
+    }
+
+    Object current = view.pipeline;
+    for (String field : path.split("\\.")) {
+      if (!(current instanceof JSONObject) || !((JSONObject) current).has(field)) {
+        return null;
+      }
+      current = ((JSONObject) current).get(field);
+    }
+
+    if (current instanceof JSONObject) {
+      return JSONObject.fromObject(current.toString());
+    }
+    if (current instanceof JSONArray) {
+      return JSONArray.fromObject(current.toString());
+    }
+    return current;
+  }
+
+  @CheckForNull
+  private PipelineView getView() {
     V1alpha1Pipeline pipeline =
         Clients.get(V1alpha1Pipeline.class).lister().namespace(namespace).get(name);
-    if (pipeline != null) {
-      V1alpha1Pipeline newPipeline = DeepCopyUtils.deepCopy(pipeline);
-      mountActionsPipeline(run.getAllActions(), newPipeline);
-      data.put("pipeline", JSONObject.fromObject(new JSON().serialize(newPipeline)));
+    if (pipeline == null) {
+      return null;
     }
-    return data;
+
+    String resourceVersion = pipeline.getMetadata().getResourceVersion();
+    String actionsVersion = actionsVersion();
+    PipelineView view = views.getIfPresent(run);
+    if (view != null && view.isBuiltFrom(resourceVersion, actionsVersion)) {
+      return view;
+    }
+
+    view = new PipelineView(resourceVersion, actionsVersion, toJSON(pipeline));
+    views.put(run, view);
+    return view;
+  }
+
+  /**
+   * Serialize the Pipeline with the information items of this run. We don't modify the Pipeline
+   * from the lister, so no deep copy is needed.
+   */
+  private String toJSON(V1alpha1Pipeline pipeline) {
+    JSON json = new JSON();
+    JSONObject pipelineJSON = JSONObject.fromObject(json.serialize(pipeline));
+    if (pipeline.getStatus() != null) {
+      JSONObject status = pipelineJSON.getJSONObject("status");
+      JSONObject information = status.optJSONObject("information");
+      if (information == null) {
+        information = new JSONObject();
+      }
+      information.put(
+          "items", JSONArray.fromObject(json.serialize(toInformationItems(run.getAllActions()))));
+      status.put("information", information);
+      pipelineJSON.put("status", status);
+    }
+    return pipelineJSON.toString();
+  }
+
+  private String actionsVersion() {
+    StringBuilder version = new StringBuilder();
+    for (PipelineAction action : run.getActions(PipelineAction.class)) {
+      version
+          .append(System.identityHashCode(action))
+          .append(':')
+          .append(action.getRevision())
+          .append(':')
+          .append(action.getItems().size())
+          .append(';');
+    }
+    return version.toString();
   }
 
   @Whitelisted
@@ -108,4 +235,23 @@ public class PipelineContext {
   public String getName() {
     return name;
   }
+
+  private static class PipelineView {
+    private final String resourceVersion;
+    private final String actionsVersion;
+    private final String serialized;
+    private final JSONObject pipeline;
+
+    PipelineView(String resourceVersion, String actionsVersion, String serialized) {
+      this.resourceVersion = resourceVersion;
+      this.actionsVersion = actionsVersion;
+      this.serialized = serialized;
+      this.pipeline = JSONObject.fromObject(serialized);
+    }
+
+    boolean isBuiltFrom(String resourceVersion, String actionsVersion) {
+      return StringUtils.equals(this.resourceVersion, resourceVersion)
+          && this.actionsVersion.equals(actionsVersion);
+    }
+  }
 }
@@ -0,0 +1,79 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.devops.java.client.models.V1alpha1Jenkins;
+import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.alauda.jenkins.devops.sync.constants.Constants;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JenkinsControllerTest {
+  private static final String LABELS = "{\"labels\":[\"master\",\"golang\"]}";
+  private static final String PLUGINS =
+      "{\"plugins\":[{\"name\":\"Pipeline\",\"version\":\"2.6\",\"status\":\"active\"}]}";
+
+  private V1alpha1Jenkins jenkins;
+
+  @Before
+  public void setup() {
+    jenkins = new V1alpha1Jenkins();
+    jenkins.setMetadata(new V1ObjectMeta().name("jenkins"));
+    // the status patched by the last reconcile
+    JenkinsController.addJenkinsStatusCondition(
+        jenkins, LABELS, Constants.JENKINS_NODES_CONDITION);
+    JenkinsController.addJenkinsStatusCondition(
+        jenkins, PLUGINS, Constants.JENKINS_PLUGINS_CONDITION);
+  }
+
+  @Test
+  public void noPatchWhenSummaryNotChanged() {
+    assertTrue(JenkinsController.isStatusUpToDate(jenkins, LABELS, PLUGINS));
+  }
+
+  @Test
+  public void patchWhenNoStatus() {
+    jenkins.setStatus(null);
+    assertFalse(JenkinsController.isStatusUpToDate(jenkins, LABELS, PLUGINS));
+  }
+
+  @Test
+  public void patchWhenLabelsOrPluginsChanged() {
+    assertFalse(
+        JenkinsController.isStatusUpToDate(jenkins, "{\"labels\":[\"master\"]}", PLUGINS));
+    assertFalse(JenkinsController.isStatusUpToDate(jenkins, LABELS, "{\"plugins\":[]}"));
+  }
+
+  @Test
+  public void patchWhenConditionIsMissing() {
+    V1alpha1Jenkins withoutPlugins = DeepCopyUtils.deepCopy(jenkins);
+    withoutPlugins
+        .getStatus()
+        .getConditions()
+        .removeIf(condition -> Constants.JENKINS_PLUGINS_CONDITION.equals(condition.getName()));
+    assertFalse(JenkinsController.isStatusUpToDate(withoutPlugins, LABELS, PLUGINS));
+  }
+
+  @Test
+  public void patchWhenConditionsNotRefreshedRecently() {
+    jenkins
+        .getStatus()
+        .getConditions()
+        .forEach(condition -> condition.setLastAttempt(new DateTime().minusMinutes(11)));
+    assertFalse(JenkinsController.isStatusUpToDate(jenkins, LABELS, PLUGINS));
+  }
+
+  @Test
+  public void upToDateAfterPatchingChangedSummary() {
+    String labels = "{\"labels\":[\"master\",\"golang\",\"java\"]}";
+    assertFalse(JenkinsController.isStatusUpToDate(jenkins, labels, PLUGINS));
+
+    V1alpha1Jenkins patched = DeepCopyUtils.deepCopy(jenkins);
+    JenkinsController.addJenkinsStatusCondition(
+        patched, labels, Constants.JENKINS_NODES_CONDITION);
+    assertTrue(JenkinsController.isStatusUpToDate(patched, labels, PLUGINS));
+  }
+}
@@ -0,0 +1,211 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import static io.alauda.jenkins.devops.sync.testing.FakeApiServer.json;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.jenkins.devops.sync.testing.FakeApiServer;
+import io.kubernetes.client.openapi.JSON;
+import io.kubernetes.client.openapi.models.V1Lease;
+import io.kubernetes.client.openapi.models.V1LeaseList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.mockwebserver.MockResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class NamespaceShardsTest {
+  private static final List<String> MEMBERS = Arrays.asList("jenkins-a", "jenkins-b", "jenkins-c");
+  private static final String LEASES = "/apis/coordination.k8s.io/v1/namespaces/shards/leases";
+
+  @Rule public FakeApiServer apiserver = new FakeApiServer();
+
+  // Leases stored in the fake apiserver by name
+  private final Map<String, V1Lease> leases = new ConcurrentHashMap<>();
+  private final AtomicLong resourceVersion = new AtomicLong();
+  private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(1));
+  private final List<List<String>> membersChanges = new CopyOnWriteArrayList<>();
+  private JSON json;
+
+  @Before
+  public void setup() {
+    json = apiserver.getClient().getJSON();
+    apiserver.handle("POST", LEASES, request -> saveLease(request.getBody().readUtf8()));
+    apiserver.handle(
+        "GET",
+        LEASES,
+        request -> json(json.serialize(new V1LeaseList().items(new ArrayList<>(leases.values())))));
+    for (String member : MEMBERS) {
+      apiserver.handle(
+          "GET",
+          LEASES + "/" + member,
+          request ->
+              leases.containsKey(member)
+                  ? json(json.serialize(leases.get(member)))
+                  : json(404, "{\"kind\":\"Status\",\"code\":404}"));
+      apiserver.handle(
+          "PUT", LEASES + "/" + member, request -> saveLease(request.getBody().readUtf8()));
+      apiserver.handle(
+          "DELETE",
+          LEASES + "/" + member,
+          request -> {
+            leases.remove(member);
+            return json("{\"kind\":\"Status\",\"status\":\"Success\"}");
+          });
+    }
+  }
+
+  private MockResponse saveLease(String body) {
+    V1Lease lease = json.deserialize(body, V1Lease.class);
+    lease.getMetadata().setResourceVersion(String.valueOf(resourceVersion.incrementAndGet()));
+    leases.put(lease.getMetadata().getName(), lease);
+    return json(json.serialize(lease));
+  }
+
+  private NamespaceShards member(String leaseName) {
+    return new NamespaceShards(
+        "jenkins",
+        "shards",
+        leaseName,
+        "alauda.io/jenkins.shard.renew",
+        now::get,
+        membersChanges::add);
+  }
+
+  private static List<String> namespaces() {
+    List<String> namespaces = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      namespaces.add("namespace-" + i);
+    }
+    return namespaces;
+  }
+
+  private static Map<String, String> owners(List<String> members) {
+    Map<String, String> owners = new HashMap<>();
+    for (String namespace : namespaces()) {
+      owners.put(namespace, NamespaceShards.ownerOf(members, namespace));
+    }
+    return owners;
+  }
+
+  @Test
+  public void noOwnerWithoutMembers() {
+    assertNull(NamespaceShards.ownerOf(Collections.emptyList(), "namespace-0"));
+  }
+
+  @Test
+  public void everyNamespaceHasExactlyOneOwner() {
+    Map<String, Set<String>> namespacesByMember = new HashMap<>();
+    for (String member : MEMBERS) {
+      namespacesByMember.put(member, new HashSet<>());
+    }
+    owners(MEMBERS).forEach((namespace, owner) -> namespacesByMember.get(owner).add(namespace));
+
+    Set<String> all = new HashSet<>();
+    int total = 0;
+    for (Set<String> owned : namespacesByMember.values()) {
+      assertTrue("every member should own some namespaces", owned.size() > 0);
+      all.addAll(owned);
+      total += owned.size();
+    }
+    // disjoint and covers all namespaces
+    assertEquals(namespaces().size(), total);
+    assertEquals(new HashSet<>(namespaces()), all);
+  }
+
+  @Test
+  public void ownerDoesNotDependOnMemberOrder() {
+    List<String> reversed = new ArrayList<>(MEMBERS);
+    Collections.reverse(reversed);
+    assertEquals(owners(MEMBERS), owners(reversed));
+  }
+
+  @Test
+  public void onlyNamespacesOfLostMemberAreReassigned() {
+    Map<String, String> before = owners(MEMBERS);
+    Map<String, String> after = owners(Arrays.asList("jenkins-a", "jenkins-c"));
+
+    before.forEach(
+        (namespace, owner) -> {
+          if ("jenkins-b".equals(owner)) {
+            assertNotEquals("jenkins-b", after.get(namespace));
+          } else {
+            assertEquals(owner, after.get(namespace));
+          }
+        });
+  }
+
+  @Test
+  public void membersOwnDisjointNamespaces() {
+    NamespaceShards a = member("jenkins-a");
+    NamespaceShards b = member("jenkins-b");
+    a.renewQuietly();
+    b.renewQuietly();
+    a.renewQuietly();
+
+    assertEquals(Arrays.asList("jenkins-a", "jenkins-b"), a.getMembers());
+    assertEquals(Arrays.asList("jenkins-a", "jenkins-b"), b.getMembers());
+    int ownedByA = 0;
+    for (String namespace : namespaces()) {
+      assertTrue(
+          namespace + " should have exactly one owner",
+          a.isOwned(namespace) ^ b.isOwned(namespace));
+      ownedByA += a.isOwned(namespace) ? 1 : 0;
+    }
+    assertTrue(ownedByA > 0 && ownedByA < namespaces().size());
+  }
+
+  @Test
+  public void namespacesOfCrashedMemberFailOverAfterLeaseExpired() {
+    NamespaceShards a = member("jenkins-a");
+    NamespaceShards b = member("jenkins-b");
+    a.renewQuietly();
+    b.renewQuietly();
+    a.renewQuietly();
+    assertEquals(Arrays.asList("jenkins-a", "jenkins-b"), a.getMembers());
+
+    // b crashed, its Lease is kept but not renewed anymore
+    now.addAndGet(TimeUnit.SECONDS.toMillis(20));
+    a.renewQuietly();
+    assertEquals(Arrays.asList("jenkins-a", "jenkins-b"), a.getMembers());
+
+    now.addAndGet(TimeUnit.SECONDS.toMillis(20));
+    a.renewQuietly();
+    assertEquals(Collections.singletonList("jenkins-a"), a.getMembers());
+    assertEquals(
+        Collections.singletonList("jenkins-a"), membersChanges.get(membersChanges.size() - 1));
+    namespaces().forEach(namespace -> assertTrue(a.isOwned(namespace)));
+  }
+
+  @Test
+  public void namespacesOfStoppedMemberFailOverOnNextRenew() {
+    NamespaceShards a = member("jenkins-a");
+    NamespaceShards b = member("jenkins-b");
+    a.renewQuietly();
+    b.renewQuietly();
+    a.renewQuietly();
+
+    // b released its Lease, no need to wait for it to expire
+    b.stop();
+    assertFalse(leases.containsKey("jenkins-b"));
+    assertTrue(b.getMembers().isEmpty());
+
+    a.renewQuietly();
+    assertEquals(Collections.singletonList("jenkins-a"), a.getMembers());
+    namespaces().forEach(namespace -> assertTrue(a.isOwned(namespace)));
+  }
+}
@@ -0,0 +1,273 @@
+package io.alauda.jenkins.devops.sync.controller;
+
+import static io.alauda.jenkins.devops.sync.testing.FakeApiServer.isWatch;
+import static io.alauda.jenkins.devops.sync.testing.FakeApiServer.json;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.devops.java.client.apis.DevopsAlaudaIoV1alpha1Api;
+import io.alauda.devops.java.client.models.V1alpha1Pipeline;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfigList;
+import io.alauda.devops.java.client.models.V1alpha1PipelineList;
+import io.alauda.jenkins.devops.sync.client.Clients;
+import io.alauda.jenkins.devops.sync.client.ResourceClient;
+import io.alauda.jenkins.devops.sync.testing.FakeApiServer;
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.extended.controller.builder.ControllerBuilder;
+import io.kubernetes.client.extended.controller.builder.ControllerManagerBuilder;
+import io.kubernetes.client.extended.controller.reconciler.Request;
+import io.kubernetes.client.extended.controller.reconciler.Result;
+import io.kubernetes.client.extended.workqueue.DefaultRateLimitingQueue;
+import io.kubernetes.client.extended.workqueue.RateLimitingQueue;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Lister;
+import io.kubernetes.client.openapi.models.V1Status;
+import io.kubernetes.client.util.CallGenerator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ResourceControllerManagerTest {
+  private static final String PIPELINES = "/apis/devops.alauda.io/v1alpha1/pipelines";
+  private static final String PIPELINE_CONFIGS =
+      "/apis/devops.alauda.io/v1alpha1/pipelineconfigs";
+
+  @Rule public JenkinsRule j = new JenkinsRule();
+  @Rule public FakeApiServer apiserver = new FakeApiServer();
+
+  private final AtomicInteger pipelineLists = new AtomicInteger();
+  private final AtomicInteger pipelineConfigLists = new AtomicInteger();
+  private final BlockingQueue<String> pipelineConfigEvents = new LinkedBlockingQueue<>();
+
+  private FakeResourceController<V1alpha1Pipeline, V1alpha1PipelineList> pipelineController;
+  private FakeResourceController<V1alpha1PipelineConfig, V1alpha1PipelineConfigList>
+      pipelineConfigController;
+  private ResourceControllerManager manager;
+
+  @Before
+  public void setup() {
+    // the watch of Pipelines is dropped silently, it stays open without any event
+    apiserver.handle(
+        "GET",
+        PIPELINES,
+        request -> {
+          if (isWatch(request)) {
+            return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+          }
+          pipelineLists.incrementAndGet();
+          return json("{\"kind\":\"PipelineList\",\"metadata\":{\"resourceVersion\":\"1\"}}");
+        });
+    apiserver.handle(
+        "GET",
+        PIPELINE_CONFIGS,
+        request -> {
+          if (!isWatch(request)) {
+            pipelineConfigLists.incrementAndGet();
+            return json(
+                "{\"kind\":\"PipelineConfigList\",\"metadata\":{\"resourceVersion\":\"1\"}}");
+          }
+          try {
+            String event = pipelineConfigEvents.poll(1, TimeUnit.SECONDS);
+            return json(event == null ? "" : event);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return json("");
+          }
+        });
+
+    DevopsAlaudaIoV1alpha1Api api = new DevopsAlaudaIoV1alpha1Api(apiserver.getClient());
+    pipelineController =
+        new FakeResourceController<>(
+            V1alpha1Pipeline.class,
+            V1alpha1PipelineList.class,
+            params ->
+                api.listPipelineForAllNamespacesCall(
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    params.resourceVersion,
+                    params.timeoutSeconds,
+                    params.watch,
+                    null));
+    pipelineConfigController =
+        new FakeResourceController<>(
+            V1alpha1PipelineConfig.class,
+            V1alpha1PipelineConfigList.class,
+            params ->
+                api.listPipelineConfigForAllNamespacesCall(
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    params.resourceVersion,
+                    params.timeoutSeconds,
+                    params.watch,
+                    null));
+    manager = new ResourceControllerManager();
+  }
+
+  @After
+  public void tearDown() {
+    manager.shutdown(null);
+    Clients.getRegisteredClients().clear();
+  }
+
+  private static String pipelineConfigAdded(String name, int resourceVersion) {
+    return String.format(
+        "{\"type\":\"ADDED\",\"object\":{\"kind\":\"PipelineConfig\",\"metadata\":"
+            + "{\"namespace\":\"devops\",\"name\":\"%s\",\"resourceVersion\":\"%d\"}}}\n",
+        name, resourceVersion);
+  }
+
+  private static void waitUntil(String message, BooleanSupplier condition)
+      throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+    while (!condition.getAsBoolean()) {
+      assertTrue("Timeout to wait until " + message, System.currentTimeMillis() < deadline);
+      Thread.sleep(100);
+    }
+  }
+
+  @Test
+  public void restartingControllerOfDroppedWatchKeepsOtherControllersRunning() throws Exception {
+    manager.start(
+        Arrays.asList(pipelineController, pipelineConfigController),
+        new NamespacedInformerFactory());
+    waitUntil("controllers started", manager::isStarted);
+
+    pipelineConfigEvents.add(pipelineConfigAdded("pipeline-config-1", 2));
+    assertEquals(
+        new Request("devops", "pipeline-config-1"),
+        pipelineConfigController.reconciled.poll(30, TimeUnit.SECONDS));
+
+    SharedIndexInformer<V1alpha1Pipeline> droppedInformer =
+        Clients.get(V1alpha1Pipeline.class).informer();
+    SharedIndexInformer<V1alpha1PipelineConfig> runningInformer =
+        Clients.get(V1alpha1PipelineConfig.class).informer();
+    assertTrue(manager.restartController(pipelineController));
+
+    // the Pipeline informer is replaced and relists, the original controller stops working
+    assertNotSame(droppedInformer, Clients.get(V1alpha1Pipeline.class).informer());
+    waitUntil("Pipelines relisted", () -> pipelineLists.get() == 2);
+    assertEquals(2, pipelineController.queues.size());
+    assertTrue(pipelineController.queues.get(0).isShuttingDown());
+    assertFalse(pipelineController.queues.get(1).isShuttingDown());
+
+    // other controllers keep running with their informers
+    assertSame(runningInformer, Clients.get(V1alpha1PipelineConfig.class).informer());
+    assertEquals(1, pipelineConfigController.queues.size());
+    assertFalse(pipelineConfigController.queues.get(0).isShuttingDown());
+    pipelineConfigEvents.add(pipelineConfigAdded("pipeline-config-2", 3));
+    assertEquals(
+        new Request("devops", "pipeline-config-2"),
+        pipelineConfigController.reconciled.poll(30, TimeUnit.SECONDS));
+    assertEquals(1, pipelineConfigLists.get());
+  }
+
+  /** Registers an informer of the resource and a controller recording the reconciled requests. */
+  private static class FakeResourceController<
+          ApiType extends KubernetesObject, ApiListType extends KubernetesListObject>
+      implements ResourceController {
+    private final Class<ApiType> apiType;
+    private final Class<ApiListType> apiListType;
+    private final CallGenerator callGenerator;
+    private final List<RateLimitingQueue<Request>> queues = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Request> reconciled = new LinkedBlockingQueue<>();
+
+    FakeResourceController(
+        Class<ApiType> apiType, Class<ApiListType> apiListType, CallGenerator callGenerator) {
+      this.apiType = apiType;
+      this.apiListType = apiListType;
+      this.callGenerator = callGenerator;
+    }
+
+    @Override
+    public void add(ControllerManagerBuilder managerBuilder, SharedInformerFactory factory) {
+      SharedIndexInformer<ApiType> informer =
+          factory.sharedIndexInformerFor(callGenerator, apiType, apiListType, 0);
+      Clients.register(apiType, new InformerClient<>(informer));
+
+      RateLimitingQueue<Request> queue =
+          new DefaultRateLimitingQueue<>(Executors.newSingleThreadExecutor());
+      queues.add(queue);
+      managerBuilder.addController(
+          ControllerBuilder.defaultBuilder(factory)
+              .withWorkQueue(queue)
+              .watch(
+                  workQueue ->
+                      ControllerBuilder.controllerWatchBuilder(apiType, workQueue)
+                          .withWorkQueueKeyFunc(
+                              obj ->
+                                  new Request(
+                                      obj.getMetadata().getNamespace(),
+                                      obj.getMetadata().getName()))
+                          .build())
+              .withReconciler(
+                  request -> {
+                    reconciled.add(request);
+                    return new Result(false);
+                  })
+              .withName(apiType.getSimpleName() + "Controller")
+              .withWorkerCount(1)
+              .build());
+    }
+  }
+
+  private static class InformerClient<ApiType extends KubernetesObject>
+      implements ResourceClient<ApiType> {
+    private final SharedIndexInformer<ApiType> informer;
+
+    InformerClient(SharedIndexInformer<ApiType> informer) {
+      this.informer = informer;
+    }
+
+    @Override
+    public SharedIndexInformer<ApiType> informer() {
+      return informer;
+    }
+
+    @Override
+    public Lister<ApiType> lister() {
+      return new Lister<>(informer.getIndexer());
+    }
+
+    @Override
+    public boolean update(ApiType oldObj, ApiType newObj) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ApiType create(ApiType obj) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V1Status delete(String namespace, String name) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package io.alauda.jenkins.devops.sync.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.jenkins.devops.sync.listener.MultibranchProjectSyncExecutor.BranchState;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class BranchStateTest {
+
+  @Test
+  public void lastBuildFirstIsSymmetric() {
+    List<BranchState> states = new ArrayList<>();
+    states.add(new BranchState("a", null));
+    states.add(new BranchState("b", null));
+    states.add(new BranchState("c", 1L));
+    states.add(new BranchState("d", 2L));
+    states.add(new BranchState("e", 2L));
+
+    for (BranchState left : states) {
+      for (BranchState right : states) {
+        assertEquals(
+            Integer.signum(BranchState.LAST_BUILD_FIRST.compare(left, right)),
+            -Integer.signum(BranchState.LAST_BUILD_FIRST.compare(right, left)));
+      }
+    }
+  }
+
+  @Test
+  public void sortManyBranchesWithoutBuilds() {
+    Random random = new Random(0);
+    Map<BranchState, Long> states = new IdentityHashMap<>();
+    for (int i = 0; i < 1000; i++) {
+      Long startTime = random.nextBoolean() ? null : random.nextLong();
+      states.put(new BranchState("branch-" + i, startTime), startTime);
+    }
+    List<BranchState> shuffled = new ArrayList<>(states.keySet());
+    Collections.shuffle(shuffled, random);
+
+    List<Long> startTimes =
+        shuffled
+            .stream()
+            .sorted(BranchState.LAST_BUILD_FIRST)
+            .map(states::get)
+            .collect(Collectors.toList());
+
+    int firstNull = startTimes.indexOf(null);
+    for (int i = 1; i < firstNull; i++) {
+      assertTrue(startTimes.get(i - 1) >= startTimes.get(i));
+    }
+    for (int i = firstNull; i < startTimes.size(); i++) {
+      assertNull(startTimes.get(i));
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package io.alauda.jenkins.devops.sync.listener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.devops.java.client.models.V1alpha1PipelineParameter;
+import io.alauda.devops.java.client.models.V1alpha1PipelineParameterBuilder;
+import io.alauda.jenkins.devops.sync.multiBranch.BranchStatesAnnotation;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+public class BranchStatesAnnotationTest {
+  private static final String DOCUMENT_KEY = "alauda.io/jenkins.branches";
+  private static final String MASTER_PARAMS_KEY = "alauda.io/jenkins.master.params";
+
+  private static String params(String... names) {
+    List<V1alpha1PipelineParameter> parameters =
+        Arrays.stream(names)
+            .map(
+                name ->
+                    new V1alpha1PipelineParameterBuilder()
+                        .withType("StringParameterDefinition")
+                        .withName(name)
+                        .withValue("value")
+                        .withDescription("")
+                        .build())
+            .collect(Collectors.toList());
+    // the same as the parameters compared by WorkflowJobUtils.parametersHasChange
+    return JSONArray.fromObject(parameters).toString();
+  }
+
+  @Test
+  public void roundTripOfBranchesAndPRs() {
+    String sharedParams = params("IMAGE", "TAG");
+    String featureParams = params("IMAGE");
+
+    BranchStatesAnnotation branchStates = new BranchStatesAnnotation();
+    branchStates.addBranch("master", false, "https://example.com/tree/master", sharedParams);
+    branchStates.addPR("PR-1", false, "{\"id\":\"1\",\"title\":\"Fix build\"}", sharedParams);
+    branchStates.addBranch("feature/a", true, "https://example.com/tree/feature/a", featureParams);
+    branchStates.addBranch("no-params", false, "https://example.com/tree/no-params", null);
+    String document = branchStates.toJSON();
+
+    assertEquals(sharedParams, BranchStatesAnnotation.findParams(document, "master"));
+    assertEquals(sharedParams, BranchStatesAnnotation.findParams(document, "PR-1"));
+    assertEquals(featureParams, BranchStatesAnnotation.findParams(document, "feature/a"));
+    assertNull(BranchStatesAnnotation.findParams(document, "no-params"));
+    assertNull(BranchStatesAnnotation.findParams(document, "deleted"));
+
+    JSONObject json = JSONObject.fromObject(document);
+    assertEquals(BranchStatesAnnotation.VERSION, json.getInt("version"));
+    JSONArray branches = json.getJSONArray("branches");
+    assertEquals(4, branches.size());
+    assertEquals("pr", branches.getJSONObject(1).getString("type"));
+    assertEquals("1", branches.getJSONObject(1).getJSONObject("pr").getString("id"));
+    assertTrue(branches.getJSONObject(2).getBoolean("stale"));
+    assertFalse(branches.getJSONObject(3).has("params"));
+  }
+
+  @Test
+  public void sameParametersAreStoredOnce() {
+    String sharedParams = params("IMAGE", "TAG");
+
+    BranchStatesAnnotation branchStates = new BranchStatesAnnotation();
+    for (int i = 0; i < 100; i++) {
+      branchStates.addBranch("branch-" + i, false, "", sharedParams);
+    }
+    branchStates.addBranch("other", false, "", params("IMAGE"));
+
+    JSONObject json = JSONObject.fromObject(branchStates.toJSON());
+    assertEquals(2, json.getJSONArray("params").size());
+    JSONArray branches = json.getJSONArray("branches");
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, branches.getJSONObject(i).getInt("params"));
+    }
+    assertEquals(1, branches.getJSONObject(100).getInt("params"));
+  }
+
+  @Test
+  public void unknownDocumentsHaveNoParams() {
+    assertNull(BranchStatesAnnotation.findParams("not json", "master"));
+    assertNull(
+        BranchStatesAnnotation.findParams(
+            "{\"version\":2,\"params\":[[]],\"branches\":[{\"name\":\"master\",\"params\":0}]}",
+            "master"));
+    assertNull(
+        BranchStatesAnnotation.findParams(
+            "{\"version\":1,\"params\":[],\"branches\":[{\"name\":\"master\",\"params\":0}]}",
+            "master"));
+  }
+
+  @Test
+  public void fallbackToParamsAnnotationOfBranch() {
+    String legacyParams = params("IMAGE");
+    Map<String, String> annotations = new HashMap<>();
+    annotations.put(MASTER_PARAMS_KEY, legacyParams);
+
+    // written before the compact format
+    assertEquals(
+        legacyParams,
+        BranchStatesAnnotation.findParams(annotations, DOCUMENT_KEY, MASTER_PARAMS_KEY, "master"));
+
+    // the compact document takes precedence once it is written
+    String compactParams = params("IMAGE", "TAG");
+    BranchStatesAnnotation branchStates = new BranchStatesAnnotation();
+    branchStates.addBranch("master", false, "", compactParams);
+    annotations.put(DOCUMENT_KEY, branchStates.toJSON());
+    assertEquals(
+        compactParams,
+        BranchStatesAnnotation.findParams(annotations, DOCUMENT_KEY, MASTER_PARAMS_KEY, "master"));
+    assertNull(
+        BranchStatesAnnotation.findParams(
+            annotations, DOCUMENT_KEY, "alauda.io/jenkins.deleted.params", "deleted"));
+  }
+}
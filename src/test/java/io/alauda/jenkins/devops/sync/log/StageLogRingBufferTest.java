@@ -0,0 +1,67 @@
+package io.alauda.jenkins.devops.sync.log;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class StageLogRingBufferTest {
+
+  @Test
+  public void readWithinCapacity() {
+    StageLogRingBuffer buffer = new StageLogRingBuffer(8);
+    write(buffer, "abc");
+    write(buffer, "de");
+
+    assertChunk(buffer.read(0), 0, "abcde");
+    assertChunk(buffer.read(3), 3, "de");
+    assertChunk(buffer.read(5), 5, "");
+    assertEquals(5, buffer.getWritten());
+  }
+
+  @Test
+  public void wrapAround() {
+    StageLogRingBuffer buffer = new StageLogRingBuffer(8);
+    write(buffer, "abcdef");
+    write(buffer, "ghij");
+
+    // "ab" were dropped, reading from them starts from the earliest byte kept
+    assertChunk(buffer.read(0), 2, "cdefghij");
+    assertChunk(buffer.read(5), 5, "fghij");
+    assertEquals(10, buffer.getWritten());
+
+    write(buffer, "klmnop");
+    assertChunk(buffer.read(7), 8, "ijklmnop");
+    assertChunk(buffer.read(14), 14, "op");
+  }
+
+  @Test
+  public void writeLargerThanCapacity() {
+    StageLogRingBuffer buffer = new StageLogRingBuffer(4);
+    write(buffer, "a");
+    write(buffer, "bcdefghij");
+
+    assertChunk(buffer.read(0), 6, "ghij");
+    assertEquals(10, buffer.getWritten());
+  }
+
+  @Test
+  public void readBeyondWritten() {
+    StageLogRingBuffer buffer = new StageLogRingBuffer(4);
+    write(buffer, "abc");
+
+    assertChunk(buffer.read(100), 3, "");
+  }
+
+  private static void write(StageLogRingBuffer buffer, String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    buffer.write(bytes, 0, bytes.length);
+  }
+
+  private static void assertChunk(StageLogRingBuffer.Chunk chunk, long start, String text) {
+    assertEquals(start, chunk.getStart());
+    assertEquals(start + text.length(), chunk.getEnd());
+    assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), chunk.getData());
+  }
+}
@@ -0,0 +1,81 @@
+package io.alauda.jenkins.devops.sync.tasks.period;
+
+import static io.alauda.jenkins.devops.sync.testing.FakeApiServer.isWatch;
+import static io.alauda.jenkins.devops.sync.testing.FakeApiServer.json;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import hudson.model.TaskListener;
+import io.alauda.jenkins.devops.sync.testing.FakeApiServer;
+import java.util.List;
+import java.util.stream.Collectors;
+import okhttp3.HttpUrl;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.csanchez.jenkins.plugins.kubernetes.KubernetesCloud;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class AgentCleanerTest {
+  private static final String AGENT_PODS = "/api/v1/namespaces/agents/pods";
+
+  @Rule public JenkinsRule j = new JenkinsRule();
+  @Rule public FakeApiServer apiserver = new FakeApiServer();
+
+  private KubernetesCloud cloud;
+
+  @Before
+  public void setup() {
+    apiserver.handle(
+        "GET",
+        AGENT_PODS,
+        request ->
+            isWatch(request)
+                ? new MockResponse().withWebSocketUpgrade(new WebSocketListener() {})
+                : json("{\"kind\":\"PodList\",\"apiVersion\":\"v1\",\"items\":[]}"));
+
+    cloud = new KubernetesCloud("kubernetes");
+    cloud.setServerUrl(apiserver.getUrl());
+    cloud.setNamespace("agents");
+    cloud.setSkipTlsVerify(true);
+    j.jenkins.clouds.add(cloud);
+  }
+
+  @Test
+  public void onlyWatchesAndListsFailedAgentPodsInAgentNamespaces() throws Exception {
+    AgentCleaner cleaner = new AgentCleaner();
+    // the first run watches and sweeps, the second one keeps the running watch
+    cleaner.execute(TaskListener.NULL);
+    cleaner.execute(TaskListener.NULL);
+
+    String labelSelector =
+        cloud
+            .getPodLabelsMap()
+            .entrySet()
+            .stream()
+            .map(label -> label.getKey() + "=" + label.getValue())
+            .collect(Collectors.joining(","));
+    List<RecordedRequest> requests = apiserver.getRequests();
+    assertFalse("Expected requests to the apiserver", requests.isEmpty());
+    int watches = 0;
+    int lists = 0;
+    for (RecordedRequest request : requests) {
+      HttpUrl url = request.getRequestUrl();
+      assertEquals("GET", request.getMethod());
+      // never a list or watch of all pods in the cluster
+      assertEquals(AGENT_PODS, url.encodedPath());
+      assertEquals(labelSelector, url.queryParameter("labelSelector"));
+      assertEquals("status.phase=Failed", url.queryParameter("fieldSelector"));
+      if (isWatch(request)) {
+        watches++;
+      } else {
+        lists++;
+      }
+    }
+    assertEquals(1, watches);
+    assertEquals(1, lists);
+  }
+}
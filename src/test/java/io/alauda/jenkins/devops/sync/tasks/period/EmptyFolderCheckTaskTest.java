@@ -0,0 +1,95 @@
+package io.alauda.jenkins.devops.sync.tasks.period;
+
+import static org.junit.Assert.assertEquals;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import io.alauda.jenkins.devops.sync.AlaudaFolderProperty;
+import io.alauda.jenkins.devops.sync.WorkflowJobProperty;
+import io.alauda.jenkins.devops.sync.testing.ApiCallRecorder;
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.informer.cache.Lister;
+import io.kubernetes.client.openapi.models.V1Namespace;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class EmptyFolderCheckTaskTest {
+  private static final int FOLDERS = 300;
+  private static final int NAMESPACES = 250;
+
+  @Rule public JenkinsRule j = new JenkinsRule();
+  @Rule public ApiCallRecorder apiCalls = new ApiCallRecorder();
+
+  private List<Folder> folders;
+  private Lister<V1Namespace> namespaceLister;
+
+  @Before
+  public void setup() throws IOException {
+    Cache<V1Namespace> cache = new Cache<>();
+    for (int i = 0; i < NAMESPACES; i++) {
+      cache.add(new V1Namespace().metadata(new V1ObjectMeta().name("devops-" + i)));
+    }
+    namespaceLister = new Lister<>(cache);
+
+    folders = new ArrayList<>();
+    for (int i = 0; i < FOLDERS; i++) {
+      Folder folder = j.jenkins.createProject(Folder.class, "devops-" + i);
+      folder
+          .createProject(WorkflowJob.class, "pipeline")
+          .addProperty(new WorkflowJobProperty("devops-" + i, "pipeline", "uid-" + i, "1", null));
+      // folders of deleted namespaces which contain jobs created by user
+      if (i >= FOLDERS - 10) {
+        folder.createProject(WorkflowJob.class, "created-by-user");
+      }
+      folders.add(folder);
+    }
+    // folders marked as dirty when we received Delete event of their namespaces
+    markDirty(folders.get(0));
+    markDirty(folders.get(1));
+
+    // only the lookups of namespaces are under test
+    apiCalls.getCalls().clear();
+  }
+
+  private static void markDirty(Folder folder) throws IOException {
+    AlaudaFolderProperty property = new AlaudaFolderProperty();
+    property.setDirty(true);
+    folder.addProperty(property);
+  }
+
+  private static List<String> names(List<Folder> folders) {
+    return folders.stream().map(Folder::getName).collect(Collectors.toList());
+  }
+
+  @Test
+  public void deleteDirtyFoldersAndFoldersOfMissingNamespaces() {
+    List<String> expected = new ArrayList<>();
+    expected.add("devops-0");
+    expected.add("devops-1");
+    for (int i = NAMESPACES; i < FOLDERS - 10; i++) {
+      expected.add("devops-" + i);
+    }
+
+    assertEquals(
+        expected, names(EmptyFolderCheckTask.findFoldersShouldDelete(folders, namespaceLister)));
+    assertEquals(Collections.emptyList(), apiCalls.getCalls());
+  }
+
+  @Test
+  public void deleteOnlyDirtyFoldersBeforeNamespacesSynced() {
+    List<String> expected = new ArrayList<>();
+    expected.add("devops-0");
+    expected.add("devops-1");
+
+    assertEquals(expected, names(EmptyFolderCheckTask.findFoldersShouldDelete(folders, null)));
+    assertEquals(Collections.emptyList(), apiCalls.getCalls());
+  }
+}
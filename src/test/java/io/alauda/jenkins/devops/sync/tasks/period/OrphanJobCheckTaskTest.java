@@ -0,0 +1,78 @@
+package io.alauda.jenkins.devops.sync.tasks.period;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.jenkins.devops.sync.testing.ApiCallRecorder;
+import io.alauda.jenkins.devops.sync.util.NamespaceName;
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.informer.cache.Lister;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class OrphanJobCheckTaskTest {
+  @Rule public ApiCallRecorder apiCalls = new ApiCallRecorder();
+
+  private Lister<V1alpha1PipelineConfig> lister;
+
+  @Before
+  public void setup() {
+    Cache<V1alpha1PipelineConfig> cache = new Cache<>();
+    for (int i = 0; i < 100; i++) {
+      cache.add(pipelineConfig("owned", "pipeline-" + i));
+    }
+    lister = new Lister<>(cache);
+  }
+
+  private static V1alpha1PipelineConfig pipelineConfig(String namespace, String name) {
+    V1alpha1PipelineConfig pipelineConfig = new V1alpha1PipelineConfig();
+    pipelineConfig.setMetadata(new V1ObjectMeta().namespace(namespace).name(name));
+    return pipelineConfig;
+  }
+
+  @Test
+  public void jobsInCacheAreNotOrphans() {
+    List<NamespaceName> jobs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      jobs.add(new NamespaceName("owned", "pipeline-" + i));
+    }
+
+    assertTrue(OrphanJobCheckTask.findOrphans(jobs, lister, namespace -> true).isEmpty());
+    assertEquals(Collections.emptyList(), apiCalls.getCalls());
+  }
+
+  @Test
+  public void jobsMissingFromCacheAreOrphans() {
+    List<NamespaceName> jobs =
+        Arrays.asList(
+            new NamespaceName("owned", "pipeline-0"),
+            new NamespaceName("owned", "deleted"),
+            new NamespaceName("deleted-namespace", "pipeline-0"));
+
+    assertEquals(
+        Arrays.asList(
+            new NamespaceName("owned", "deleted"),
+            new NamespaceName("deleted-namespace", "pipeline-0")),
+        OrphanJobCheckTask.findOrphans(jobs, lister, namespace -> true));
+    assertEquals(Collections.emptyList(), apiCalls.getCalls());
+  }
+
+  @Test
+  public void jobsOfOtherMastersAreNotOrphans() {
+    List<NamespaceName> jobs =
+        Arrays.asList(
+            new NamespaceName("owned", "deleted"), new NamespaceName("not-owned", "pipeline-0"));
+
+    assertEquals(
+        Collections.singletonList(new NamespaceName("owned", "deleted")),
+        OrphanJobCheckTask.findOrphans(jobs, lister, "owned"::equals));
+    assertEquals(Collections.emptyList(), apiCalls.getCalls());
+  }
+}
@@ -0,0 +1,46 @@
+package io.alauda.jenkins.devops.sync.testing;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.Configuration;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import okhttp3.Request;
+import org.junit.rules.ExternalResource;
+
+/**
+ * Replaces the default ApiClient with one that records and fails every request, so tests could
+ * assert that nothing is sent to apiserver.
+ */
+public class ApiCallRecorder extends ExternalResource {
+  private final List<String> calls = new CopyOnWriteArrayList<>();
+  private ApiClient previous;
+
+  @Override
+  protected void before() {
+    previous = Configuration.getDefaultApiClient();
+    ApiClient client = new ApiClient();
+    client.setHttpClient(
+        client
+            .getHttpClient()
+            .newBuilder()
+            .addInterceptor(
+                chain -> {
+                  Request request = chain.request();
+                  calls.add(request.method() + " " + request.url());
+                  throw new IOException("Unexpected call to apiserver " + request.url());
+                })
+            .build());
+    Configuration.setDefaultApiClient(client);
+  }
+
+  @Override
+  protected void after() {
+    Configuration.setDefaultApiClient(previous);
+  }
+
+  /** @return method and url of requests sent through the default ApiClient */
+  public List<String> getCalls() {
+    return calls;
+  }
+}
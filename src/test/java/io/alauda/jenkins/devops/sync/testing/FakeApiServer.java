@@ -0,0 +1,116 @@
+package io.alauda.jenkins.devops.sync.testing;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.Configuration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.apache.commons.lang.StringUtils;
+import org.junit.rules.ExternalResource;
+
+/**
+ * A fake apiserver that responds the requests by the handlers registered for their method and
+ * path, other requests get 404. The default ApiClient sends requests to it while the test runs.
+ */
+public class FakeApiServer extends ExternalResource {
+  private final MockWebServer server = new MockWebServer();
+  private final Map<String, Function<RecordedRequest, MockResponse>> handlers =
+      new ConcurrentHashMap<>();
+  private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+  private ApiClient client;
+  private ApiClient previous;
+
+  @Override
+  protected void before() throws IOException {
+    server.setDispatcher(
+        new Dispatcher() {
+          @Override
+          public MockResponse dispatch(RecordedRequest request) {
+            requests.add(request);
+            Function<RecordedRequest, MockResponse> handler =
+                handlers.get(request.getMethod() + " " + request.getRequestUrl().encodedPath());
+            if (handler == null) {
+              return json(404, "{\"kind\":\"Status\",\"status\":\"Failure\",\"code\":404}");
+            }
+            return handler.apply(request);
+          }
+        });
+    server.start();
+
+    client = new ApiClient();
+    client.setBasePath(StringUtils.removeEnd(getUrl(), "/"));
+    // watches are kept open until the test closes them
+    client.setHttpClient(
+        client.getHttpClient().newBuilder().readTimeout(0, TimeUnit.SECONDS).build());
+
+    previous = Configuration.getDefaultApiClient();
+    Configuration.setDefaultApiClient(client);
+  }
+
+  @Override
+  protected void after() {
+    Configuration.setDefaultApiClient(previous);
+    try {
+      server.shutdown();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Respond the requests of the method and path by the handler.
+   *
+   * @param method http method, like GET
+   * @param path path of the request without query, like /api/v1/namespaces
+   * @param handler creates the response of a request
+   */
+  public void handle(String method, String path, Function<RecordedRequest, MockResponse> handler) {
+    handlers.put(method + " " + path, handler);
+  }
+
+  /** @return method and path with query of requests received */
+  public List<String> getCalls() {
+    return requests
+        .stream()
+        .map(request -> request.getMethod() + " " + request.getPath())
+        .collect(Collectors.toList());
+  }
+
+  public List<RecordedRequest> getRequests() {
+    return requests;
+  }
+
+  /** @return the client sending requests to this server, it is the default ApiClient */
+  public ApiClient getClient() {
+    return client;
+  }
+
+  public String getUrl() {
+    return server.url("/").toString();
+  }
+
+  public static boolean isWatch(RecordedRequest request) {
+    return "true".equals(request.getRequestUrl().queryParameter("watch"));
+  }
+
+  public static MockResponse json(String body) {
+    return json(200, body);
+  }
+
+  public static MockResponse json(int code, String body) {
+    return new MockResponse()
+        .setResponseCode(code)
+        .setHeader("Content-Type", "application/json")
+        .setBody(body);
+  }
+}
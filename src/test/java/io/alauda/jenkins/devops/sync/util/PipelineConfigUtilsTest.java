@@ -0,0 +1,103 @@
+package io.alauda.jenkins.devops.sync.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import io.alauda.devops.java.client.models.V1alpha1Condition;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfig;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfigSpec;
+import io.alauda.devops.java.client.models.V1alpha1PipelineConfigStatus;
+import io.alauda.devops.java.client.utils.DeepCopyUtils;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import java.util.ArrayList;
+import java.util.List;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PipelineConfigUtilsTest {
+  private static final String CONTEXT = "{\"alauda.io/pipelinecontext.a\":\"1\"}";
+
+  private V1alpha1PipelineConfig pipelineConfig;
+
+  @Before
+  public void setup() {
+    V1ObjectMeta metadata =
+        new V1ObjectMeta()
+            .namespace("devops")
+            .name("pipeline")
+            .uid("uid")
+            .resourceVersion("1")
+            .putLabelsItem("a", "1")
+            .putLabelsItem("b", "2");
+
+    V1alpha1PipelineConfigSpec spec = new V1alpha1PipelineConfigSpec();
+    spec.setRunPolicy("Serial");
+
+    List<V1alpha1Condition> conditions = new ArrayList<>();
+    conditions.add(condition("Initialized", "True").lastAttempt(DateTime.now()));
+    conditions.add(condition("Synced", "True").lastAttempt(DateTime.now()));
+    V1alpha1PipelineConfigStatus status = new V1alpha1PipelineConfigStatus();
+    status.setConditions(conditions);
+
+    pipelineConfig = new V1alpha1PipelineConfig();
+    pipelineConfig.setMetadata(metadata);
+    pipelineConfig.setSpec(spec);
+    pipelineConfig.setStatus(status);
+  }
+
+  @Test
+  public void specHashIsStable() {
+    String hash = PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, null);
+
+    assertEquals(hash, PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, null));
+    assertEquals(
+        hash,
+        PipelineConfigUtils.specHash(DeepCopyUtils.deepCopy(pipelineConfig), CONTEXT, null));
+  }
+
+  @Test
+  public void specHashIgnoresResourceVersionAndSyncedCondition() {
+    String hash = PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, null);
+
+    V1alpha1PipelineConfig updated = DeepCopyUtils.deepCopy(pipelineConfig);
+    updated.getMetadata().setResourceVersion("2");
+    V1alpha1Condition synced =
+        ConditionUtils.getCondition(updated.getStatus().getConditions(), "Synced");
+    synced.status("False").reason("Changed").lastAttempt(DateTime.now().plusMinutes(1));
+    ConditionUtils.getCondition(updated.getStatus().getConditions(), "Initialized")
+        .lastAttempt(DateTime.now().plusMinutes(1));
+
+    assertEquals(hash, PipelineConfigUtils.specHash(updated, CONTEXT, null));
+  }
+
+  @Test
+  public void specHashChangesWithJobInputs() {
+    String hash = PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, null);
+
+    V1alpha1PipelineConfig specChanged = DeepCopyUtils.deepCopy(pipelineConfig);
+    specChanged.getSpec().setRunPolicy("Parallel");
+    assertNotEquals(hash, PipelineConfigUtils.specHash(specChanged, CONTEXT, null));
+
+    V1alpha1PipelineConfig labelChanged = DeepCopyUtils.deepCopy(pipelineConfig);
+    labelChanged.getMetadata().putLabelsItem("b", "3");
+    assertNotEquals(hash, PipelineConfigUtils.specHash(labelChanged, CONTEXT, null));
+
+    V1alpha1PipelineConfig conditionChanged = DeepCopyUtils.deepCopy(pipelineConfig);
+    conditionChanged.getStatus().getConditions().add(condition("SupportPRDiscovery", "False"));
+    assertNotEquals(hash, PipelineConfigUtils.specHash(conditionChanged, CONTEXT, null));
+
+    assertNotEquals(hash, PipelineConfigUtils.specHash(pipelineConfig, "{}", null));
+    assertNotEquals(hash, PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, "10"));
+    assertNotEquals(
+        PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, "10"),
+        PipelineConfigUtils.specHash(pipelineConfig, CONTEXT, "11"));
+  }
+
+  private V1alpha1Condition condition(String type, String status) {
+    V1alpha1Condition condition = new V1alpha1Condition();
+    condition.setType(type);
+    condition.setStatus(status);
+    return condition;
+  }
+}